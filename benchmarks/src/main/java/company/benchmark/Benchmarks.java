@@ -0,0 +1,38 @@
+package company.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Without arguments runs all benchmarks with the GC profiler and
+ * exports the results to {@value #RESULT_FILE}; otherwise hands the arguments to the JMH command line.
+ */
+public final class Benchmarks {
+
+    private static final String RESULT_FILE = "jmh-result.json";
+
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        runAll();
+    }
+
+    private static void runAll() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(Benchmarks.class.getPackage().getName() + ".*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT_FILE)
+                .build();
+        new Runner(options).run();
+    }
+}
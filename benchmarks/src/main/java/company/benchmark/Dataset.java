@@ -0,0 +1,45 @@
+package company.benchmark;
+
+import com.sinergise.geometry.Geometry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Named benchmark inputs, used as the {@code dataset} JMH parameter. Every dataset is generated from a
+ * fixed seed.
+ */
+public enum Dataset {
+
+    POINT(g -> single(g.point())),
+    LINESTRING_100(g -> single(g.lineString(100))),
+    LINESTRING_10000(g -> single(g.lineString(10000))),
+    POLYGON_10(g -> single(g.polygon(10, 0, 0))),
+    POLYGON_1000(g -> single(g.polygon(1000, 0, 0))),
+    POLYGON_100000(g -> single(g.polygon(100000, 0, 0))),
+    POLYGON_1000_WITH_10_HOLES(g -> single(g.polygon(1000, 10, 100))),
+    MULTIPOINT_1000(g -> single(g.multiPoint(1000))),
+    MULTILINESTRING_100X100(g -> single(g.multiLineString(100, 100))),
+    MULTIPOLYGON_100X100(g -> single(g.multiPolygon(100, 100))),
+    MULTIPOLYGON_1000X1000(g -> single(g.multiPolygon(1000, 1000))),
+    NESTED_COLLECTION_8(g -> single(g.nestedCollection(8))),
+    NESTED_COLLECTION_256(g -> single(g.nestedCollection(256))),
+    MIXED_1000(g -> g.mixed(1000));
+
+    private static final long SEED = 20180121L;
+
+    private final Function<SyntheticGeometries, List<Geometry>> generator;
+
+    Dataset(Function<SyntheticGeometries, List<Geometry>> generator) {
+        this.generator = generator;
+    }
+
+    public List<Geometry> create() {
+        return generator.apply(new SyntheticGeometries(SEED));
+    }
+
+    private static List<Geometry> single(Geometry geometry) {
+        return Collections.singletonList(geometry);
+    }
+}
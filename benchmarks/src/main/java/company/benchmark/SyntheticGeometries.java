@@ -0,0 +1,142 @@
+package company.benchmark;
+
+import com.sinergise.geometry.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of benchmark geometries. The same seed always gives the same geometries, so
+ * results of different versions are comparable.
+ * <p>
+ * Ordinates look like longitude/latitude with 6 decimals, rings are closed star-shaped polygons around a
+ * random centre, so every generated polygon is valid.
+ */
+public final class SyntheticGeometries {
+
+    private static final double SCALE = 1e6;
+
+    private final Random random;
+
+    public SyntheticGeometries(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public Point point() {
+        return new Point(longitude(), latitude());
+    }
+
+    public LineString lineString(int vertices) {
+        double[] coords = new double[vertices * 2];
+        double x = longitude();
+        double y = latitude();
+        for (int i = 0; i < vertices; i++) {
+            x += random.nextGaussian() * 0.001;
+            y += random.nextGaussian() * 0.001;
+            coords[2 * i] = round(x);
+            coords[2 * i + 1] = round(y);
+        }
+        return new LineString(coords);
+    }
+
+    /**
+     * Closed ring with the given number of distinct vertices, plus the closing vertex.
+     */
+    public LineString ring(double centreX, double centreY, double radius, int vertices) {
+        double[] coords = new double[(vertices + 1) * 2];
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            double r = radius * (0.7 + 0.3 * random.nextDouble());
+            coords[2 * i] = round(centreX + r * Math.cos(angle));
+            coords[2 * i + 1] = round(centreY + r * Math.sin(angle));
+        }
+        coords[2 * vertices] = coords[0];
+        coords[2 * vertices + 1] = coords[1];
+        return new LineString(coords);
+    }
+
+    public Polygon polygon(int vertices, int holes, int verticesPerHole) {
+        double x = longitude();
+        double y = latitude();
+        LineString outer = ring(x, y, 0.1, vertices);
+        LineString[] holeRings = new LineString[holes];
+        for (int i = 0; i < holes; i++) {
+            double angle = 2 * Math.PI * i / holes;
+            holeRings[i] = ring(x + 0.04 * Math.cos(angle), y + 0.04 * Math.sin(angle), 0.01, verticesPerHole);
+        }
+        return new Polygon(outer, holeRings);
+    }
+
+    public MultiPoint multiPoint(int points) {
+        Point[] members = new Point[points];
+        for (int i = 0; i < points; i++) {
+            members[i] = point();
+        }
+        return new MultiPoint(members);
+    }
+
+    public MultiLineString multiLineString(int lineStrings, int vertices) {
+        LineString[] members = new LineString[lineStrings];
+        for (int i = 0; i < lineStrings; i++) {
+            members[i] = lineString(vertices);
+        }
+        return new MultiLineString(members);
+    }
+
+    public MultiPolygon multiPolygon(int polygons, int vertices) {
+        Polygon[] members = new Polygon[polygons];
+        for (int i = 0; i < polygons; i++) {
+            members[i] = polygon(vertices, i % 3, 8);
+        }
+        return new MultiPolygon(members);
+    }
+
+    /**
+     * Collection nested depth levels deep; every level holds a point, a small polygon and the next level.
+     */
+    public GeometryCollection<Geometry> nestedCollection(int depth) {
+        Geometry inner = point();
+        for (int i = 0; i < depth; i++) {
+            inner = new GeometryCollection<>(new Geometry[]{point(), polygon(6, 0, 0), inner});
+        }
+        return (GeometryCollection<Geometry>) inner;
+    }
+
+    /**
+     * Mixed records resembling a parcel dataset: mostly small polygons, some points, lines and larger
+     * multi geometries.
+     */
+    public List<Geometry> mixed(int count) {
+        List<Geometry> geometries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int kind = random.nextInt(100);
+            if (kind < 55) {
+                geometries.add(polygon(5 + random.nextInt(60), random.nextInt(10) == 0 ? 1 : 0, 6));
+            } else if (kind < 75) {
+                geometries.add(point());
+            } else if (kind < 87) {
+                geometries.add(lineString(2 + random.nextInt(100)));
+            } else if (kind < 95) {
+                geometries.add(multiPolygon(2 + random.nextInt(5), 10 + random.nextInt(200)));
+            } else if (kind < 98) {
+                geometries.add(multiPoint(1 + random.nextInt(20)));
+            } else {
+                geometries.add(nestedCollection(1 + random.nextInt(3)));
+            }
+        }
+        return geometries;
+    }
+
+    private double longitude() {
+        return round(-180 + 360 * random.nextDouble());
+    }
+
+    private double latitude() {
+        return round(-85 + 170 * random.nextDouble());
+    }
+
+    private static double round(double value) {
+        return Math.round(value * SCALE) / SCALE;
+    }
+}
@@ -0,0 +1,149 @@
+package company.benchmark;
+
+import com.sinergise.geometry.Geometry;
+import company.ParallelWKTReader;
+import company.WKTCodec;
+import company.WKTColumnarDecoder;
+import company.WKTMetricsRecorder;
+import company.WKTReader;
+import company.WKTStreamReader;
+import company.WKTStreamWriter;
+import company.WKTWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of parsing each {@link Dataset}; one operation parses every record of the dataset once.
+ * Run with {@code -prof gc} for the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class WKTReaderBenchmark {
+
+    @Param({"POINT", "LINESTRING_100", "LINESTRING_10000", "POLYGON_10", "POLYGON_1000", "POLYGON_100000",
+            "POLYGON_1000_WITH_10_HOLES", "MULTIPOINT_1000", "MULTILINESTRING_100X100", "MULTIPOLYGON_100X100",
+            "MULTIPOLYGON_1000X1000", "NESTED_COLLECTION_8", "NESTED_COLLECTION_256", "MIXED_1000"})
+    public String dataset;
+
+    private WKTReader reader;
+    private WKTReader parallelReader;
+    private WKTReader recordedReader;
+    private String[] records;
+    private byte[][] recordBytes;
+    private String[] columnarRecords;
+    private WKTColumnarDecoder decoder;
+    private byte[] gzipped;
+
+    @Setup
+    public void setUp() throws IOException {
+        reader = new WKTReader();
+        parallelReader = new ParallelWKTReader(ForkJoinPool.commonPool(), 1 << 16);
+        recordedReader = new WKTReader(new WKTMetricsRecorder());
+        WKTWriter writer = new WKTWriter();
+        List<Geometry> geometries = Dataset.valueOf(dataset).create();
+        records = new String[geometries.size()];
+        recordBytes = new byte[geometries.size()][];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = writer.write(geometries.get(i));
+            recordBytes[i] = records[i].getBytes(StandardCharsets.US_ASCII);
+        }
+        columnarRecords = Arrays.stream(records).filter(record -> !record.startsWith("GEOMETRYCOLLECTION")).toArray(String[]::new);
+        decoder = new WKTColumnarDecoder();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (WKTStreamWriter out = new WKTStreamWriter(compressed, WKTCodec.GZIP, writer)) {
+            for (Geometry geometry : geometries) {
+                out.write(geometry);
+            }
+        }
+        gzipped = compressed.toByteArray();
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) throws IOException {
+        for (String record : records) {
+            blackhole.consume(reader.read(record));
+        }
+    }
+
+    @Benchmark
+    public void readBytes(Blackhole blackhole) throws IOException {
+        for (byte[] record : recordBytes) {
+            blackhole.consume(reader.read(record, 0, record.length));
+        }
+    }
+
+    /**
+     * Same as {@link #read} with metrics recorded, for the cost of the enabled path; {@link #read} itself
+     * runs the disabled one.
+     */
+    @Benchmark
+    public void readRecorded(Blackhole blackhole) throws IOException {
+        for (String record : records) {
+            blackhole.consume(recordedReader.read(record));
+        }
+    }
+
+    /**
+     * Records of 64K characters and more are split into members parsed on the common pool.
+     */
+    @Benchmark
+    public void readParallel(Blackhole blackhole) throws IOException {
+        for (String record : records) {
+            blackhole.consume(parallelReader.read(record));
+        }
+    }
+
+    /**
+     * Whole dataset into one columnar batch; geometry collections have no columnar form and are left out.
+     */
+    @Benchmark
+    public void readColumnar(Blackhole blackhole) throws IOException {
+        decoder.clear();
+        for (String record : columnarRecords) {
+            decoder.add(record);
+        }
+        blackhole.consume(decoder.build(false));
+    }
+
+    /**
+     * The dataset as a gzipped newline-delimited dump, decompressed on a second thread while parsing.
+     */
+    @Benchmark
+    public void readCompressed(Blackhole blackhole) throws IOException {
+        try (WKTStreamReader in = WKTStreamReader.open(new ByteArrayInputStream(gzipped), WKTCodec.GZIP, reader, false)) {
+            for (Geometry geometry = in.read(); geometry != null; geometry = in.read()) {
+                blackhole.consume(geometry);
+            }
+        }
+    }
+
+    /**
+     * Structural scan only, as done by a filter that rejects records on type or element counts.
+     */
+    @Benchmark
+    public void readLazy(Blackhole blackhole) throws IOException {
+        for (String record : records) {
+            blackhole.consume(reader.readLazy(record).getNumCoordinates());
+        }
+    }
+
+    @Benchmark
+    public void readEnvelope(Blackhole blackhole) throws IOException {
+        for (String record : records) {
+            blackhole.consume(reader.readEnvelope(record));
+        }
+    }
+}
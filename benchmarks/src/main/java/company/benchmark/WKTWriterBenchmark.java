@@ -0,0 +1,84 @@
+package company.benchmark;
+
+import com.sinergise.geometry.Geometry;
+import company.WKTMetricsRecorder;
+import company.WKTWriter;
+import company.WKTWriterConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of formatting each {@link Dataset}; one operation writes every record of the dataset once.
+ * Run with {@code -prof gc} for the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class WKTWriterBenchmark {
+
+    @Param({"POINT", "LINESTRING_100", "LINESTRING_10000", "POLYGON_10", "POLYGON_1000", "POLYGON_100000",
+            "POLYGON_1000_WITH_10_HOLES", "MULTIPOINT_1000", "MULTILINESTRING_100X100", "MULTIPOLYGON_100X100",
+            "MULTIPOLYGON_1000X1000", "NESTED_COLLECTION_8", "NESTED_COLLECTION_256", "MIXED_1000"})
+    public String dataset;
+
+    private WKTWriter writer;
+    private WKTWriter recordedWriter;
+    private List<Geometry> geometries;
+    private StringBuilder output;
+
+    @Setup
+    public void setUp() {
+        writer = new WKTWriter();
+        recordedWriter = new WKTWriter(WKTWriterConfig.DEFAULT, new WKTMetricsRecorder());
+        geometries = Dataset.valueOf(dataset).create();
+        output = new StringBuilder();
+    }
+
+    @Benchmark
+    public void write(Blackhole blackhole) throws IOException {
+        for (Geometry geometry : geometries) {
+            blackhole.consume(writer.write(geometry));
+        }
+    }
+
+    /**
+     * Same as {@link #write} with metrics recorded, for the cost of the enabled path.
+     */
+    @Benchmark
+    public void writeRecorded(Blackhole blackhole) throws IOException {
+        for (Geometry geometry : geometries) {
+            blackhole.consume(recordedWriter.write(geometry));
+        }
+    }
+
+    /**
+     * Writes into one reused builder, which leaves only the formatting itself to measure.
+     */
+    @Benchmark
+    public void writeToAppendable(Blackhole blackhole) throws IOException {
+        for (Geometry geometry : geometries) {
+            output.setLength(0);
+            writer.write(geometry, output);
+            blackhole.consume(output);
+        }
+    }
+
+    /**
+     * Whole dataset as newline separated records, multi geometries of 64K vertices and more split into
+     * members, formatted on the common pool.
+     */
+    @Benchmark
+    public void writeAllParallel(Blackhole blackhole) throws IOException {
+        output.setLength(0);
+        writer.writeAll(geometries, output, "\n", ForkJoinPool.commonPool(), 1 << 16);
+        blackhole.consume(output);
+    }
+}
@@ -0,0 +1,49 @@
+package company;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only {@link CharSequence} view of ASCII bytes, so that WKT held in a byte array or a (mapped)
+ * {@link ByteBuffer} can be tokenized without decoding or copying it. Bytes are read with absolute gets,
+ * the position of the underlying buffer is never changed.
+ */
+final class AsciiCharSequence implements CharSequence {
+
+    private final ByteBuffer bytes;
+    private final int offset;
+    private final int length;
+
+    AsciiCharSequence(ByteBuffer bytes) {
+        this(bytes, bytes.position(), bytes.remaining());
+    }
+
+    AsciiCharSequence(ByteBuffer bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new AsciiCharSequence(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = charAt(i);
+        }
+        return new String(chars);
+    }
+}
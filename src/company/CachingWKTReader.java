@@ -0,0 +1,228 @@
+package company;
+
+import com.sinergise.geometry.*;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * WKTReader that remembers the geometries of recently read inputs, for services that parse the same
+ * (large) WKT over and over. e.g.
+ * <pre><code>
+ * WKTReader reader = new CachingWKTReader(1000, 64L &lt;&lt; 20);
+ * reader.read(municipality) == reader.read(municipality); //true, the second call does not parse
+ * </code></pre>
+ * Entries are keyed by content, a hit compares the input with the cached text, so different inputs with
+ * the same hash never share a geometry. The least recently used entries are evicted once either the
+ * number of entries or their estimated size exceeds its limit; an input that alone exceeds the size
+ * limit is parsed but not cached. Inputs that fail to parse are not cached.
+ * <p>
+ * Repeated reads return the same geometry instance. The geometry model has no mutators and the parser
+ * keeps no reference to the arrays it builds, so sharing instances is safe.
+ * <p>
+ * Instances are thread-safe; parsing happens outside the cache lock, so concurrent misses of the same
+ * input may both parse it.
+ */
+public class CachingWKTReader extends WKTReader {
+
+    private static final int ENTRY_OVERHEAD = 96;
+    private static final int OBJECT_OVERHEAD = 16;
+    private static final int REFERENCE_SIZE = 8;
+
+    /**
+     * Content of a cached input. Lookups wrap the input range without copying it.
+     */
+    private static final class Key {
+        final CharSequence text;
+        final int start;
+        final int end;
+        final int hash;
+
+        Key(CharSequence text, int start, int end, int hash) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            if (hash != other.hash || end - start != other.end - other.start) {
+                return false;
+            }
+            for (int i = start, j = other.start; i < end; i++, j++) {
+                if (text.charAt(i) != other.text.charAt(j)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Entry {
+        final Geometry geometry;
+        final long vertices;
+        final long size;
+
+        Entry(Geometry geometry, long vertices, long size) {
+            this.geometry = geometry;
+            this.vertices = vertices;
+            this.size = size;
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long estimatedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Cache limited by the number of entries only.
+     */
+    public CachingWKTReader(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE);
+    }
+
+    /**
+     * Cache limited by the number of entries and by the estimated heap size of cached texts and geometries.
+     */
+    public CachingWKTReader(int maxEntries, long maxBytes) {
+        this(maxEntries, maxBytes, WKTMetrics.NONE);
+    }
+
+    /**
+     * Cache that reports every geometry it returns to the listener, hits included, as
+     * {@link WKTReader#WKTReader(WKTMetrics)} does.
+     */
+    public CachingWKTReader(int maxEntries, long maxBytes, WKTMetrics metrics) {
+        super(metrics);
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache limits must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    Geometry read(CharSequence input, int start, int end, long[] vertices) throws IOException {
+        int hash = hash(input, start, end);
+        synchronized (this) {
+            Entry entry = entries.get(new Key(input, start, end, hash));
+            if (entry != null) {
+                hits++;
+                if (vertices != null) {
+                    vertices[0] += entry.vertices;
+                }
+                return entry.geometry;
+            }
+            misses++;
+        }
+        long[] parsed = new long[1];
+        Geometry geometry = super.read(input, start, end, parsed);
+        long size = ENTRY_OVERHEAD + 2L * (end - start) + estimateSize(geometry);
+        if (size <= maxBytes) {
+            String text = input.subSequence(start, end).toString();
+            put(new Key(text, 0, text.length(), hash), new Entry(geometry, parsed[0], size));
+        }
+        if (vertices != null) {
+            vertices[0] += parsed[0];
+        }
+        return geometry;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Estimated heap size of the cached texts and geometries in bytes.
+     */
+    public synchronized long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Removes all entries; the hit, miss and eviction counts are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        estimatedBytes = 0;
+    }
+
+    private synchronized void put(Key key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            estimatedBytes -= previous.size;
+        }
+        estimatedBytes += entry.size;
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || estimatedBytes > maxBytes) {
+            estimatedBytes -= eldest.next().getValue().size;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static int hash(CharSequence input, int start, int end) {
+        int hash = end - start;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + input.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Rough retained size of the geometry; walks parts, not vertices.
+     */
+    private static long estimateSize(Geometry geometry) {
+        if (geometry instanceof LineString) {
+            LineString lineString = (LineString) geometry;
+            return 2 * OBJECT_OVERHEAD + 16L * lineString.getNumCoords();
+        }
+        if (geometry instanceof Polygon) {
+            Polygon polygon = (Polygon) geometry;
+            long size = 2 * OBJECT_OVERHEAD;
+            if (polygon.getOuter() != null) {
+                size += estimateSize(polygon.getOuter());
+            }
+            for (int i = 0; i < polygon.getNumHoles(); i++) {
+                size += REFERENCE_SIZE + estimateSize(polygon.getHole(i));
+            }
+            return size;
+        }
+        if (geometry instanceof GeometryCollection) {
+            long size = 3 * OBJECT_OVERHEAD;
+            for (Geometry element : (GeometryCollection<?>) geometry) {
+                size += REFERENCE_SIZE + estimateSize(element);
+            }
+            return size;
+        }
+        return 2 * OBJECT_OVERHEAD;
+    }
+}
@@ -0,0 +1,156 @@
+package company;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded hand-off of byte chunks from a producer thread to a consumer thread, the two stages of a
+ * compressed {@link WKTStreamReader} or {@link WKTStreamWriter}. A fixed number of chunks circulates: the
+ * producer takes an empty one, fills it and sends it, the consumer receives it and recycles it once
+ * used. So at most that many chunks are in flight and none is allocated after construction.
+ * <p>
+ * A failing stage records its exception with {@link #fail(Throwable)}; the producer always ends the
+ * stream with {@link #end()}, after which {@link #receive()} returns null.
+ */
+final class ChunkPipe {
+
+    static final int DEFAULT_CHUNKS = 4;
+    static final int DEFAULT_CHUNK_SIZE = 64 << 10;
+    /**
+     * Buffer size of the gzip streams of {@link WKTCodec#GZIP}, so that one chunk is compressed or inflated
+     * in about one step.
+     */
+    static final int CODEC_BUFFER_SIZE = DEFAULT_CHUNK_SIZE;
+
+    static final class Chunk {
+        final byte[] data;
+        int length;
+
+        Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+
+    private static final Chunk END = new Chunk(0);
+
+    private final BlockingQueue<Chunk> filled;
+    private final BlockingQueue<Chunk> empty;
+    private volatile Throwable failure;
+    private volatile boolean cancelled;
+
+    ChunkPipe(int chunks, int chunkSize) {
+        this.filled = new ArrayBlockingQueue<>(chunks + 1);
+        this.empty = new ArrayBlockingQueue<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            empty.add(new Chunk(chunkSize));
+        }
+    }
+
+    /**
+     * Takes an empty chunk, waiting until the consumer recycles one.
+     */
+    Chunk emptyChunk() throws IOException {
+        try {
+            Chunk chunk = empty.take();
+            chunk.length = 0;
+            return chunk;
+        } catch (InterruptedException e) {
+            throw interrupted();
+        }
+    }
+
+    void send(Chunk chunk) throws IOException {
+        try {
+            filled.put(chunk);
+        } catch (InterruptedException e) {
+            throw interrupted();
+        }
+    }
+
+    /**
+     * Returns the next filled chunk, or null once the producer has ended.
+     */
+    Chunk receive() throws IOException {
+        Chunk chunk;
+        try {
+            chunk = filled.take();
+        } catch (InterruptedException e) {
+            throw interrupted();
+        }
+        if (chunk == END) {
+            filled.offer(END);
+            return null;
+        }
+        return chunk;
+    }
+
+    void recycle(Chunk chunk) {
+        empty.offer(chunk);
+    }
+
+    /**
+     * Ends the stream; there is always room for the marker since only the circulating chunks can be
+     * queued before it.
+     */
+    void end() {
+        filled.offer(END);
+    }
+
+    /**
+     * Tells the producer to stop, see {@link #isCancelled()}, and recycles the given chunk held by the
+     * consumer, if any, and all filled ones, so that a producer waiting for an empty chunk wakes up.
+     */
+    void cancel(Chunk held) {
+        cancelled = true;
+        if (held != null) {
+            recycle(held);
+        }
+        for (Chunk chunk; (chunk = filled.poll()) != null; ) {
+            if (chunk == END) {
+                filled.offer(END);
+                break;
+            }
+            recycle(chunk);
+        }
+    }
+
+    /**
+     * Whether the consumer has stopped; checked by the producer before filling a chunk.
+     */
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void fail(Throwable e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Throws the failure of the other stage, if any, wrapped to keep the stack trace of this thread.
+     */
+    void checkFailure() throws IOException {
+        Throwable e = failure;
+        if (e != null) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Starts a stage on a new daemon thread.
+     */
+    static Thread start(String name, Runnable stage) {
+        Thread thread = new Thread(stage, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static InterruptedIOException interrupted() {
+        Thread.currentThread().interrupt();
+        return new InterruptedIOException("Interrupted while waiting for the other pipeline stage");
+    }
+}
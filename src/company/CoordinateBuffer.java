@@ -0,0 +1,61 @@
+package company;
+
+import java.util.Arrays;
+
+/**
+ * Growable primitive buffer for interlaced ordinates, reused between the rings of one parse so
+ * that reading a vertex does not allocate.
+ */
+final class CoordinateBuffer {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int size;
+
+    void clear() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(double x, double y) {
+        if (size + 2 > values.length) {
+            values = Arrays.copyOf(values, values.length << 1);
+        }
+        values[size] = x;
+        values[size + 1] = y;
+        size += 2;
+    }
+
+    /**
+     * Appends a single value, for the parallel z and m buffers.
+     */
+    void add(double value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length << 1);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Drops an exceptionally large array after use, so that a pooled buffer does not pin the memory of
+     * the largest ring it has ever seen.
+     */
+    void trim() {
+        size = 0;
+        if (values.length > MAX_RETAINED_CAPACITY) {
+            values = new double[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Returns an exactly sized copy of the buffered ordinates.
+     */
+    double[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
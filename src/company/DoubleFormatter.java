@@ -0,0 +1,186 @@
+package company;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Appends doubles in plain decimal notation without creating intermediate Strings, either in the shortest
+ * form that reads back to the same value or rounded to a fixed number of decimal places.
+ * <p>
+ * Integral values are written as integers. Other values are scaled by increasing powers of ten until the
+ * scaled integer divided by that power gives back the original double; both operands are exact, so the
+ * division is correctly rounded and the decimal text round-trips through any correct parser. Values that
+ * need more than 53 bits of precision in that form fall back to {@link Double#toString(double)}. NaN and
+ * infinite values have no WKT number form and are rejected.
+ */
+final class DoubleFormatter {
+
+    static final int MAX_DECIMAL_PLACES = 17;
+
+    private static final double MAX_EXACT = 1L << 53;
+    /**
+     * Bound of the relative error of one rounded multiplication.
+     */
+    private static final double PRODUCT_ERROR = 0x1p-52;
+    private static final int MAX_FRACTION_DIGITS = MAX_DECIMAL_PLACES;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private DoubleFormatter() {
+    }
+
+    static void append(Appendable out, double value) throws IOException {
+        if (value == 0) {
+            out.append(1 / value < 0 ? "-0" : "0");
+            return;
+        }
+        checkFinite(value);
+        double abs = Math.abs(value);
+        if (abs < MAX_EXACT && abs == Math.rint(abs)) {
+            if (value < 0) {
+                out.append('-');
+            }
+            appendDigits(out, (long) abs, 0);
+            return;
+        }
+        for (int fractionDigits = 1; fractionDigits <= MAX_FRACTION_DIGITS; fractionDigits++) {
+            double power = POWERS_OF_TEN[fractionDigits];
+            double scaled = Math.rint(abs * power);
+            if (scaled >= MAX_EXACT) {
+                break;
+            }
+            long digits = matchScaled(abs, (long) scaled, power);
+            if (digits > 0) {
+                if (value < 0) {
+                    out.append('-');
+                }
+                appendDigits(out, digits, fractionDigits);
+                return;
+            }
+        }
+        out.append(Double.toString(value));
+    }
+
+    /**
+     * Appends the value rounded half away from zero to a fixed number of decimal places, optionally
+     * without trailing zeros.
+     * <p>
+     * The rounding is decided on the product value * 10^decimalPlaces. Only when that product is so close
+     * to a half that its own rounding error could flip the decision, the exact binary value is rounded with
+     * {@link BigDecimal} instead.
+     */
+    static void appendFixed(Appendable out, double value, int decimalPlaces, boolean trimTrailingZeros) throws IOException {
+        checkFinite(value);
+        double abs = Math.abs(value);
+        double scaled = abs * POWERS_OF_TEN[decimalPlaces];
+        long digits;
+        if (scaled < MAX_EXACT) {
+            digits = roundScaled(abs, scaled, decimalPlaces);
+        } else {
+            BigInteger exact = roundExactly(abs, decimalPlaces);
+            if (exact.bitLength() >= Long.SIZE - 1) {
+                BigDecimal rounded = new BigDecimal(exact, decimalPlaces);
+                if (value < 0) {
+                    out.append('-');
+                }
+                out.append((trimTrailingZeros ? rounded.stripTrailingZeros() : rounded).toPlainString());
+                return;
+            }
+            digits = exact.longValue();
+        }
+        if (trimTrailingZeros) {
+            while (decimalPlaces > 0 && digits % 10 == 0) {
+                digits /= 10;
+                decimalPlaces--;
+            }
+        }
+        if (value < 0 && digits != 0) {
+            out.append('-');
+        }
+        appendDigits(out, digits, decimalPlaces);
+    }
+
+    private static void checkFinite(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IOException("Cannot write ordinate " + value + ", WKT numbers are finite");
+        }
+    }
+
+    /**
+     * Returns the value rounded as by {@link #appendFixed}, scaled by 10^decimalPlaces: two values are
+     * written the same if and only if their results are equal. Values too large to scale exactly are
+     * returned scaled but not rounded.
+     */
+    static double round(double value, int decimalPlaces) {
+        double abs = Math.abs(value);
+        double scaled = abs * POWERS_OF_TEN[decimalPlaces];
+        if (Double.isNaN(value) || scaled >= MAX_EXACT) {
+            return Math.copySign(scaled, value);
+        }
+        return Math.copySign(roundScaled(abs, scaled, decimalPlaces), value);
+    }
+
+    /**
+     * Rounds abs to the given decimal places, scaled = abs * 10^decimalPlaces being below 2^53.
+     */
+    private static long roundScaled(double abs, double scaled, int decimalPlaces) {
+        double floor = Math.floor(scaled);
+        double fraction = scaled - floor;
+        if (Math.abs(fraction - 0.5) > scaled * PRODUCT_ERROR) {
+            return (long) floor + (fraction > 0.5 ? 1 : 0);
+        }
+        return roundExactly(abs, decimalPlaces).longValueExact();
+    }
+
+    private static BigInteger roundExactly(double abs, int decimalPlaces) {
+        return new BigDecimal(abs).setScale(decimalPlaces, RoundingMode.HALF_UP).unscaledValue();
+    }
+
+    /**
+     * Returns the integer among scaled and its neighbours that divided by power equals abs, or -1. The
+     * neighbours cover the case where the product abs * power itself was rounded across a half.
+     */
+    private static long matchScaled(double abs, long scaled, double power) {
+        if (scaled / power == abs) {
+            return scaled;
+        }
+        if (scaled > 1 && (scaled - 1) / power == abs) {
+            return scaled - 1;
+        }
+        if ((scaled + 1) / power == abs) {
+            return scaled + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Appends the decimal digits of a non-negative number, inserting a decimal point before the last
+     * fractionDigits digits.
+     */
+    static void appendDigits(Appendable out, long digits, int fractionDigits) throws IOException {
+        int length = 1;
+        long divisor = 1;
+        while (length < POWERS_OF_TEN.length && digits / divisor >= 10) {
+            divisor *= 10;
+            length++;
+        }
+        if (length <= fractionDigits) {
+            out.append('0').append('.');
+            for (int i = length; i < fractionDigits; i++) {
+                out.append('0');
+            }
+            fractionDigits = 0;
+        }
+        for (int i = length; i > 0; i--) {
+            if (i == fractionDigits) {
+                out.append('.');
+            }
+            out.append((char) ('0' + (digits / divisor) % 10));
+            divisor /= 10;
+        }
+    }
+}
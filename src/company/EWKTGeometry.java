@@ -0,0 +1,51 @@
+package company;
+
+import com.sinergise.geometry.Geometry;
+
+/**
+ * Geometry with the spatial reference id of the PostGIS EWKT prefix, e.g.
+ * <code>SRID=4326;POINT (14.5 46.05)</code>. {@link WKTReader} returns it for input with the prefix and
+ * {@link WKTWriter} writes the prefix back.
+ */
+public final class EWKTGeometry implements Geometry {
+
+    private final int srid;
+    private final Geometry geometry;
+
+    public EWKTGeometry(int srid, Geometry geometry) {
+        this.srid = srid;
+        this.geometry = geometry;
+    }
+
+    public int getSrid() {
+        return srid;
+    }
+
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return geometry.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "SRID=" + srid + ";" + geometry;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * srid + geometry.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof EWKTGeometry)) {
+            return false;
+        }
+        EWKTGeometry other = (EWKTGeometry) obj;
+        return srid == other.srid && geometry.equals(other.geometry);
+    }
+}
@@ -0,0 +1,13 @@
+package company;
+
+import com.sinergise.geometry.Geometry;
+
+/**
+ * Geometry whose vertices carry a z (elevation) and/or m (measure) ordinate besides x and y.
+ */
+public interface GeometryZM extends Geometry {
+
+    boolean hasZ();
+
+    boolean hasM();
+}
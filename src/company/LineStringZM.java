@@ -0,0 +1,82 @@
+package company;
+
+import com.sinergise.geometry.LineString;
+
+import java.util.Arrays;
+
+/**
+ * LineString (or polygon ring) whose vertices carry a z and/or m ordinate. x and y stay interlaced in
+ * {@link #coords}, the extra ordinates are kept in parallel arrays with one value per vertex.
+ */
+public class LineStringZM extends LineString implements GeometryZM {
+
+    private static final double[] NONE = new double[0];
+
+    private final double[] z;
+    private final double[] m;
+
+    /**
+     * Empty linestring of the given dimension.
+     */
+    public LineStringZM(boolean hasZ, boolean hasM) {
+        this(NONE, hasZ ? NONE : null, hasM ? NONE : null);
+    }
+
+    /**
+     * @param coords interlaced x and y ordinates
+     * @param z      z of each vertex, or null
+     * @param m      m of each vertex, or null
+     */
+    public LineStringZM(double[] coords, double[] z, double[] m) {
+        super(coords);
+        int numCoords = coords.length >>> 1;
+        if ((z != null && z.length != numCoords) || (m != null && m.length != numCoords)) {
+            throw new IllegalArgumentException("Expected " + numCoords + " z and m values");
+        }
+        this.z = z;
+        this.m = m;
+    }
+
+    @Override
+    public boolean hasZ() {
+        return z != null;
+    }
+
+    @Override
+    public boolean hasM() {
+        return m != null;
+    }
+
+    /**
+     * Returns the z of the i-th vertex, or NaN if the linestring has no z.
+     */
+    public double getZ(int i) {
+        return z == null ? Double.NaN : z[i];
+    }
+
+    /**
+     * Returns the m of the i-th vertex, or NaN if the linestring has no m.
+     */
+    public double getM(int i) {
+        return m == null ? Double.NaN : m[i];
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(coords) + Arrays.hashCode(z)) + Arrays.hashCode(m);
+    }
+
+    /**
+     * Two LineStringZMs are equal if all their ordinates and their dimensions are; a plain LineString never
+     * is. {@link LineString#equals} compares x and y of any LineString and cannot be changed, so
+     * <code>plain.equals(zm)</code> is still true when x and y are: compare with the LineStringZM on the left.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof LineStringZM) || !super.equals(obj)) {
+            return false;
+        }
+        LineStringZM other = (LineStringZM) obj;
+        return Arrays.equals(z, other.z) && Arrays.equals(m, other.m);
+    }
+}
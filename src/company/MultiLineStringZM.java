@@ -0,0 +1,53 @@
+package company;
+
+import com.sinergise.geometry.GeometryCollection;
+
+/**
+ * MultiLineString of {@link LineStringZM}s, for <code>MULTILINESTRING Z</code>, <code>MULTILINESTRING M</code>
+ * and <code>MULTILINESTRING ZM</code>.
+ */
+public final class MultiLineStringZM extends GeometryCollection<LineStringZM> implements GeometryZM {
+
+    private final boolean hasZ;
+    private final boolean hasM;
+
+    /**
+     * Empty multilinestring of the given dimension.
+     */
+    public MultiLineStringZM(boolean hasZ, boolean hasM) {
+        this.hasZ = hasZ;
+        this.hasM = hasM;
+    }
+
+    /**
+     * Multilinestring of at least one linestring, all of the same dimension, empty ones included.
+     *
+     * @throws IllegalArgumentException if there are no linestrings or their dimensions differ
+     */
+    public MultiLineStringZM(LineStringZM[] lineStrings) {
+        super(lineStrings);
+        WKTDimension dimension = WKTDimension.common(lineStrings);
+        this.hasZ = dimension.hasZ();
+        this.hasM = dimension.hasM();
+    }
+
+    @Override
+    public boolean hasZ() {
+        return hasZ;
+    }
+
+    @Override
+    public boolean hasM() {
+        return hasM;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + (hasZ ? 1 : 0) + (hasM ? 2 : 0);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return super.equals(obj) && hasZ == ((MultiLineStringZM) obj).hasZ && hasM == ((MultiLineStringZM) obj).hasM;
+    }
+}
@@ -0,0 +1,53 @@
+package company;
+
+import com.sinergise.geometry.GeometryCollection;
+
+/**
+ * MultiPoint of {@link PointZM}s, for <code>MULTIPOINT Z</code>, <code>MULTIPOINT M</code> and
+ * <code>MULTIPOINT ZM</code>.
+ */
+public final class MultiPointZM extends GeometryCollection<PointZM> implements GeometryZM {
+
+    private final boolean hasZ;
+    private final boolean hasM;
+
+    /**
+     * Empty multipoint of the given dimension.
+     */
+    public MultiPointZM(boolean hasZ, boolean hasM) {
+        this.hasZ = hasZ;
+        this.hasM = hasM;
+    }
+
+    /**
+     * Multipoint of at least one point, all of the same dimension, empty ones included.
+     *
+     * @throws IllegalArgumentException if there are no points or their dimensions differ
+     */
+    public MultiPointZM(PointZM[] points) {
+        super(points);
+        WKTDimension dimension = WKTDimension.common(points);
+        this.hasZ = dimension.hasZ();
+        this.hasM = dimension.hasM();
+    }
+
+    @Override
+    public boolean hasZ() {
+        return hasZ;
+    }
+
+    @Override
+    public boolean hasM() {
+        return hasM;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + (hasZ ? 1 : 0) + (hasM ? 2 : 0);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return super.equals(obj) && hasZ == ((MultiPointZM) obj).hasZ && hasM == ((MultiPointZM) obj).hasM;
+    }
+}
@@ -0,0 +1,53 @@
+package company;
+
+import com.sinergise.geometry.GeometryCollection;
+
+/**
+ * MultiPolygon of {@link PolygonZM}s, for <code>MULTIPOLYGON Z</code>, <code>MULTIPOLYGON M</code> and
+ * <code>MULTIPOLYGON ZM</code>.
+ */
+public final class MultiPolygonZM extends GeometryCollection<PolygonZM> implements GeometryZM {
+
+    private final boolean hasZ;
+    private final boolean hasM;
+
+    /**
+     * Empty multipolygon of the given dimension.
+     */
+    public MultiPolygonZM(boolean hasZ, boolean hasM) {
+        this.hasZ = hasZ;
+        this.hasM = hasM;
+    }
+
+    /**
+     * Multipolygon of at least one polygon, all of the same dimension, empty ones included.
+     *
+     * @throws IllegalArgumentException if there are no polygons or their dimensions differ
+     */
+    public MultiPolygonZM(PolygonZM[] polygons) {
+        super(polygons);
+        WKTDimension dimension = WKTDimension.common(polygons);
+        this.hasZ = dimension.hasZ();
+        this.hasM = dimension.hasM();
+    }
+
+    @Override
+    public boolean hasZ() {
+        return hasZ;
+    }
+
+    @Override
+    public boolean hasM() {
+        return hasM;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + (hasZ ? 1 : 0) + (hasM ? 2 : 0);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return super.equals(obj) && hasZ == ((MultiPolygonZM) obj).hasZ && hasM == ((MultiPolygonZM) obj).hasM;
+    }
+}
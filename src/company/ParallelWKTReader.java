@@ -0,0 +1,213 @@
+package company;
+
+import com.sinergise.geometry.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WKTReader that parses the members of large multi geometries and collections concurrently, to cut the
+ * latency of single huge records, e.g. a national MULTIPOLYGON with tens of thousands of members.
+ * <pre><code>
+ * WKTReader reader = new ParallelWKTReader(ForkJoinPool.commonPool(), 1 &lt;&lt; 20);
+ * </code></pre>
+ * Records shorter than the threshold, and all other geometry types, are parsed sequentially. For longer
+ * ones the top level member boundaries are found with a bracket depth scan over the input, the members
+ * are parsed in batches on the pool and put together in input order. Members of a collection that are
+ * themselves above the threshold are split again. The members of a multi geometry are parsed with its
+ * dimension tag or, if it has none, with the dimension of its first member, which is parsed ahead; if that
+ * one is empty the record is parsed sequentially. The result and the accepted syntax are the same as
+ * those of {@link WKTReader}.
+ * <p>
+ * Instances are thread-safe.
+ */
+public class ParallelWKTReader extends WKTReader {
+
+    private static final int DEFAULT_THRESHOLD = 1 << 20;
+    private static final int BATCHES_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelWKTReader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param pool      pool the members are parsed on
+     * @param threshold minimum number of characters of a record to be parsed in parallel
+     */
+    public ParallelWKTReader(ForkJoinPool pool, int threshold) {
+        this(pool, threshold, WKTMetrics.NONE);
+    }
+
+    /**
+     * Reader that reports every record read through its public methods to the listener.
+     */
+    public ParallelWKTReader(ForkJoinPool pool, int threshold, WKTMetrics metrics) {
+        super(metrics);
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    @Override
+    Geometry read(CharSequence input, int start, int end, long[] vertices) throws IOException {
+        // EWKT records are rare enough to be left to the sequential parser
+        if (end - start >= threshold && new WKTTokenizer(input, start, end).readSrid() == WKTTokenizer.NO_SRID) {
+            // the members are counted on the worker threads
+            LongAdder memberVertices = vertices == null ? null : new LongAdder();
+            Geometry geometry = readSplit(input, start, end, memberVertices);
+            if (geometry != null) {
+                if (vertices != null) {
+                    vertices[0] += memberVertices.sum();
+                }
+                return geometry;
+            }
+        }
+        return super.read(input, start, end, vertices);
+    }
+
+    /**
+     * Parses a member of a collection, which unlike a record cannot have an SRID prefix.
+     */
+    private Geometry readCollectionMember(CharSequence input, int start, int end, LongAdder vertices) throws IOException {
+        if (end - start >= threshold) {
+            Geometry geometry = readSplit(input, start, end, vertices);
+            if (geometry != null) {
+                return geometry;
+            }
+        }
+        return readMember(WKTGeometryType.GEOMETRYCOLLECTION, input, start, end, null, vertices);
+    }
+
+    /**
+     * Parses the members of a multi geometry or collection in parallel, or returns null if the geometry is
+     * of another kind or malformed and is to be parsed sequentially. The vertices of the members are only
+     * added to the counter, if any, once all of them have been parsed.
+     */
+    private Geometry readSplit(CharSequence input, int start, int end, LongAdder vertices) throws IOException {
+        WKTTokenizer tokenizer = new WKTTokenizer(input, start, end);
+        WKTGeometryType type = tokenizer.readGeometryType();
+        if (type == WKTGeometryType.POINT || type == WKTGeometryType.LINESTRING || type == WKTGeometryType.POLYGON) {
+            return null;
+        }
+        // each member of a collection has its own dimension, as in the sequential parser
+        WKTDimension dimension = type == WKTGeometryType.GEOMETRYCOLLECTION ? null : tokenizer.readDimension();
+        if (tokenizer.tryKeyword(WKTTokenizer.EMPTY) || !tokenizer.tryOpenBracket()) {
+            return null;
+        }
+        int[] bounds = memberBounds(input, tokenizer.position(), end);
+        if (bounds == null) {
+            // unbalanced or trailing input, let the sequential parser report it
+            return null;
+        }
+        Geometry[] members = new Geometry[bounds.length - 1];
+        LongAdder memberVertices = new LongAdder();
+        try {
+            int first = 0;
+            if (dimension == null && type != WKTGeometryType.GEOMETRYCOLLECTION) {
+                members[0] = readMember(type, input, bounds[0], bounds[1], null, memberVertices);
+                if (members[0].isEmpty()) {
+                    return null;
+                }
+                dimension = members[0] instanceof GeometryZM ? WKTDimension.of((GeometryZM) members[0]) : WKTDimension.XY;
+                first = 1;
+            }
+            readMembers(type, dimension, input, bounds, members, first, memberVertices);
+        } catch (WKTParseException e) {
+            // report the error located in the whole record, as the sequential parser does
+            return null;
+        }
+        if (vertices != null) {
+            vertices.add(memberVertices.sum());
+        }
+        if (type == WKTGeometryType.GEOMETRYCOLLECTION) {
+            return new GeometryCollection<>(Arrays.asList(members));
+        }
+        // the parser builds members of the z/m types for any other dimension than XY
+        boolean planar = dimension == WKTDimension.XY;
+        switch (type) {
+            case MULTIPOINT:
+                return planar ? new MultiPoint(Arrays.copyOf(members, members.length, Point[].class))
+                        : new MultiPointZM(Arrays.copyOf(members, members.length, PointZM[].class));
+            case MULTILINESTRING:
+                return planar ? new MultiLineString(Arrays.copyOf(members, members.length, LineString[].class))
+                        : new MultiLineStringZM(Arrays.copyOf(members, members.length, LineStringZM[].class));
+            default:
+                return planar ? new MultiPolygon(Arrays.copyOf(members, members.length, Polygon[].class))
+                        : new MultiPolygonZM(Arrays.copyOf(members, members.length, PolygonZM[].class));
+        }
+    }
+
+    /**
+     * Parses the members from the first one on into the array, those of a multi geometry with its dimension.
+     */
+    private void readMembers(WKTGeometryType type, WKTDimension dimension, CharSequence input, int[] bounds,
+                             Geometry[] members, int firstMember, LongAdder vertices) throws IOException {
+        int numMembers = members.length;
+        long batchSize = Math.max(1, (bounds[numMembers] - bounds[firstMember]) / ((long) pool.getParallelism() * BATCHES_PER_THREAD));
+        List<Future<Void>> batches = new ArrayList<>();
+        int first = firstMember;
+        while (first < numMembers) {
+            int last = first + 1;
+            while (last < numMembers && bounds[last] - bounds[first] < batchSize) {
+                last++;
+            }
+            int from = first;
+            int to = last;
+            batches.add(pool.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    int memberStart = i == 0 ? bounds[0] : bounds[i] + 1;
+                    members[i] = type == WKTGeometryType.GEOMETRYCOLLECTION
+                            ? readCollectionMember(input, memberStart, bounds[i + 1], vertices)
+                            : readMember(type, input, memberStart, bounds[i + 1], dimension, vertices);
+                }
+                return null;
+            }));
+            first = last;
+        }
+        for (Future<Void> batch : batches) {
+            WKTBulkLoader.await(batch);
+        }
+    }
+
+    /**
+     * Returns the position after the opening bracket followed by the positions of the top level commas and
+     * of the closing bracket, or null if the brackets are not balanced or anything but whitespace follows
+     * the closing bracket.
+     */
+    private static int[] memberBounds(CharSequence input, int start, int end) {
+        int[] bounds = new int[64];
+        bounds[0] = start;
+        int count = 1;
+        int depth = 1;
+        int pos = start;
+        while (pos < end && depth > 0) {
+            char c = input.charAt(pos);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            }
+            if ((c == ',' && depth == 1) || depth == 0) {
+                if (count == bounds.length) {
+                    bounds = Arrays.copyOf(bounds, count << 1);
+                }
+                bounds[count++] = pos;
+            }
+            pos++;
+        }
+        if (depth != 0 || !WKTStreamReader.isBlank(input, pos, end)) {
+            return null;
+        }
+        return Arrays.copyOf(bounds, count);
+    }
+}
@@ -0,0 +1,105 @@
+package company;
+
+/**
+ * Point with a z and/or m ordinate, the counterpart of {@link com.sinergise.geometry.Point} for
+ * <code>POINT Z</code>, <code>POINT M</code> and <code>POINT ZM</code>. Absent ordinates are NaN; an empty
+ * point has NaN coordinates but keeps its dimension.
+ */
+public final class PointZM implements GeometryZM {
+
+    private final double x;
+    private final double y;
+    private final double z;
+    private final double m;
+    private final boolean hasZ;
+    private final boolean hasM;
+
+    /**
+     * Empty point of the given dimension.
+     */
+    public PointZM(boolean hasZ, boolean hasM) {
+        this(Double.NaN, Double.NaN, Double.NaN, Double.NaN, hasZ, hasM);
+    }
+
+    public PointZM(double x, double y, double z) {
+        this(x, y, z, Double.NaN, true, false);
+    }
+
+    public PointZM(double x, double y, double z, double m) {
+        this(x, y, z, m, true, true);
+    }
+
+    private PointZM(double x, double y, double z, double m, boolean hasZ, boolean hasM) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.m = m;
+        this.hasZ = hasZ;
+        this.hasM = hasM;
+    }
+
+    /**
+     * Point with a measure but no z, <code>POINT M (x y m)</code>.
+     */
+    public static PointZM withM(double x, double y, double m) {
+        return new PointZM(x, y, Double.NaN, m, false, true);
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    public double getM() {
+        return m;
+    }
+
+    @Override
+    public boolean hasZ() {
+        return hasZ;
+    }
+
+    @Override
+    public boolean hasM() {
+        return hasM;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return Double.isNaN(x) && Double.isNaN(y);
+    }
+
+    @Override
+    public String toString() {
+        return "PointZM (" + x + " " + y + " " + z + " " + m + ")";
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = Double.doubleToLongBits(x);
+        bits = 31 * bits + Double.doubleToLongBits(y);
+        bits = 31 * bits + Double.doubleToLongBits(z);
+        bits = 31 * bits + Double.doubleToLongBits(m);
+        return (int) (bits ^ (bits >>> 32)) + (hasZ ? 1 : 0) + (hasM ? 2 : 0);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof PointZM)) {
+            return false;
+        }
+        PointZM other = (PointZM) obj;
+        return hasZ == other.hasZ && hasM == other.hasM
+                && Double.doubleToLongBits(x) == Double.doubleToLongBits(other.x)
+                && Double.doubleToLongBits(y) == Double.doubleToLongBits(other.y)
+                && Double.doubleToLongBits(z) == Double.doubleToLongBits(other.z)
+                && Double.doubleToLongBits(m) == Double.doubleToLongBits(other.m);
+    }
+}
@@ -0,0 +1,58 @@
+package company;
+
+import com.sinergise.geometry.Polygon;
+
+/**
+ * Polygon whose rings are {@link LineStringZM}s, for <code>POLYGON Z</code>, <code>POLYGON M</code> and
+ * <code>POLYGON ZM</code>.
+ */
+public final class PolygonZM extends Polygon implements GeometryZM {
+
+    private final boolean hasZ;
+    private final boolean hasM;
+
+    /**
+     * Empty polygon of the given dimension.
+     */
+    public PolygonZM(boolean hasZ, boolean hasM) {
+        this.hasZ = hasZ;
+        this.hasM = hasM;
+    }
+
+    /**
+     * Polygon with the dimension of its outer ring, which the holes, empty ones included, must share.
+     *
+     * @throws IllegalArgumentException if a ring is not closed or the dimensions differ
+     */
+    public PolygonZM(LineStringZM outer, LineStringZM[] holes) {
+        super(outer, holes);
+        this.hasZ = outer.hasZ();
+        this.hasM = outer.hasM();
+        WKTDimension dimension = WKTDimension.of(outer);
+        for (int i = 0; holes != null && i < holes.length; i++) {
+            if (WKTDimension.of(holes[i]) != dimension) {
+                throw new IllegalArgumentException("Hole " + i + " is " + WKTDimension.of(holes[i]) + ", the outer ring is " + dimension);
+            }
+        }
+    }
+
+    @Override
+    public boolean hasZ() {
+        return hasZ;
+    }
+
+    @Override
+    public boolean hasM() {
+        return hasM;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + (hasZ ? 1 : 0) + (hasM ? 2 : 0);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return super.equals(obj) && hasZ == ((PolygonZM) obj).hasZ && hasM == ((PolygonZM) obj).hasM;
+    }
+}
@@ -0,0 +1,99 @@
+package company;
+
+import com.sinergise.geometry.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestConcurrentReadWrite {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 2000;
+
+    @Test
+    public void shouldShareReaderAndWriterBetweenThreads() throws Exception {
+        WKTReader reader = new WKTReader();
+        WKTWriter writer = new WKTWriter();
+
+        List<Geometry> geometries = new ArrayList<>();
+        geometries.add(new Point(4, 6));
+        geometries.add(new Point());
+        geometries.add(new LineString(new double[]{30, 10, 10, 30, 40.25, 40}));
+        geometries.add(new Polygon(new LineString(new double[]{35, 10, 45, 45, 15, 40, 10, 20, 35, 10}),
+                new LineString[]{new LineString(new double[]{20, 30, 35, 35, 30, 20, 20, 30})}));
+        geometries.add(new MultiPoint(new Point[]{new Point(10, 40), new Point(), new Point(0.1, -0.2)}));
+        geometries.add(new MultiLineString(new LineString[]{new LineString(new double[]{10, 10, 20, 20}), new LineString()}));
+        geometries.add(new GeometryCollection<>(new Geometry[]{new Point(1, 2), new MultiPolygon(new Polygon[]{new Polygon()})}));
+        geometries.add(largeLineString(20000));
+
+        List<String> expected = new ArrayList<>();
+        for (Geometry geometry : geometries) {
+            expected.add(writer.write(geometry));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        int index = (i + offset) % geometries.size();
+                        String wkt = writer.write(geometries.get(index));
+                        assertEquals(expected.get(index), wkt);
+                        assertEquals(geometries.get(index), reader.read(wkt));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void shouldRecoverScratchStateAfterFailedParse() throws IOException {
+        WKTReader reader = new WKTReader();
+        try {
+            reader.read("LINESTRING (1 2, 3");
+        } catch (IOException expected) {
+            // the next parse on this thread must start from a clean state
+        }
+        assertEquals(new LineString(new double[]{5, 6, 7, 8}), reader.read("LINESTRING (5 6, 7 8)"));
+    }
+
+    @Test
+    public void shouldWriteNestedFromCustomWriter() throws IOException {
+        WKTWriter writer = new WKTWriter();
+        // a custom writer calling write(Geometry) while the outer call holds the thread's buffer
+        writer.register(Polygon.class, "POLYGON", (geom, w, out) -> out.append(w.write(geom.getOuter()).substring("LINESTRING ".length())));
+        Polygon polygon = new Polygon(new LineString(new double[]{0, 0, 1, 0, 1, 1, 0, 0}), null);
+        assertEquals("POLYGON (0 0, 1 0, 1 1, 0 0)", writer.write(polygon));
+    }
+
+    private static LineString largeLineString(int numCoords) {
+        double[] coords = new double[numCoords * 2];
+        for (int i = 0; i < coords.length; i++) {
+            coords[i] = i * 0.5;
+        }
+        return new LineString(coords);
+    }
+}
@@ -0,0 +1,168 @@
+package company;
+
+import com.sinergise.geometry.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TestWKBReaderAndWriter {
+
+    private static WKBWriter bigEndianWriter;
+    private static WKBWriter littleEndianWriter;
+    private static WKBReader wkbReader;
+
+    @BeforeClass
+    public static void setUp() {
+        bigEndianWriter = new WKBWriter(ByteOrder.BIG_ENDIAN);
+        littleEndianWriter = new WKBWriter(ByteOrder.LITTLE_ENDIAN);
+        wkbReader = new WKBReader();
+    }
+
+    private void check(Geometry geometry) throws IOException {
+        byte[] bigEndian = bigEndianWriter.write(geometry);
+        assertEquals(WKBWriter.BIG_ENDIAN, bigEndian[0]);
+        assertEquals(geometry, wkbReader.read(bigEndian));
+
+        byte[] littleEndian = littleEndianWriter.write(geometry);
+        assertEquals(WKBWriter.LITTLE_ENDIAN, littleEndian[0]);
+        assertEquals(geometry, wkbReader.read(littleEndian));
+    }
+
+    @Test
+    public void shouldWriteAndReadPoint() throws IOException {
+        check(new Point());
+        check(new Point(2, 3));
+        check(new Point(-1.5, 1e-300));
+
+        assertEquals("0101000000000000000000F03F0000000000000040", toHex(littleEndianWriter.write(new Point(1, 2))));
+        assertEquals("00000000013FF00000000000004000000000000000", toHex(bigEndianWriter.write(new Point(1, 2))));
+    }
+
+    @Test
+    public void shouldWriteAndReadLineString() throws IOException {
+        check(new LineString());
+        check(new LineString(new double[]{1, 2}));
+        check(new LineString(new double[]{1, 2, 3, 4}));
+        check(new LineString(new double[]{1, 2, 3, 4, 5, 6}));
+        check(new LineString(new double[]{-1, 0, -3.0d, 4.0d, 5, 6}));
+
+        assertEquals(new LineString(new double[]{1, 2, 3, 4}), wkbReader.read(bigEndianWriter.write(new LineString(new double[]{1, 2, 3, 4, 5}))));
+    }
+
+    @Test
+    public void shouldWriteAndReadMultiLineString() throws IOException {
+        check(new MultiLineString());
+        check(new MultiLineString(new LineString[]{new LineString()}));
+        check(new MultiLineString(new LineString[]{new LineString(new double[]{1, 2})}));
+        check(new MultiLineString(new LineString[]{new LineString(new double[]{1, 2}), new LineString(new double[]{1, 2, 3, 4})}));
+        check(new MultiLineString(new LineString[]{new LineString(new double[]{1, 2}), new LineString(new double[]{1, 2, 3, 4}), new LineString(new double[]{1, 2, 3, 4, 5, 6}), new LineString(new double[]{-1, 0, -3.0d, 4.0d, 5, 6})}));
+    }
+
+    @Test
+    public void shouldWriteAndReadMultiPoint() throws IOException {
+        Point point = new Point();
+        Point point1 = new Point(1, 2);
+
+        check(new MultiPoint());
+        check(new MultiPoint(new Point[]{point}));
+        check(new MultiPoint(new Point[]{point1}));
+        check(new MultiPoint(new Point[]{point, point1}));
+        check(new MultiPoint(new Point[]{point1, point1}));
+        check(new MultiPoint(new Point[]{point, point1, point, point1}));
+    }
+
+    @Test
+    public void shouldWriteAndReadPolygon() throws IOException {
+        LineString lsP = new LineString();
+        LineString lsP1 = new LineString(new double[]{20, 30, 35, 35, 30, 20, 20, 30});
+        LineString lsP2 = new LineString(new double[]{30, 40, 45, 45, 40, 30, 30, 40});
+
+        check(new Polygon());
+        check(new Polygon(new LineString(new double[]{35, 10, 45, 45, 15, 40, 10, 20, 35, 10}), new LineString[]{lsP1, lsP2}));
+        check(new Polygon(new LineString(new double[]{35, 10, 45, 45, 15, 40, 10, 20, 35, 10}), new LineString[]{lsP}));
+    }
+
+    @Test
+    public void shouldReadAndWriteMultiPolygon() throws IOException {
+        LineString lsP1 = new LineString(new double[]{20, 30, 35, 35, 30, 20, 20, 30});
+        LineString lsP2 = new LineString(new double[]{30, 40, 45, 45, 40, 30, 30, 40});
+        Polygon pl = new Polygon();
+        Polygon pl1 = new Polygon(new LineString(new double[]{35, 10, 45, 45, 15, 40, 10, 20, 35, 10}), new LineString[]{lsP1, lsP2});
+
+        check(new MultiPolygon());
+        check(new MultiPolygon(new Polygon[]{pl, pl1}));
+        check(new MultiPolygon(new Polygon[]{pl1, pl1}));
+    }
+
+    @Test
+    public void shouldReadAndWriteGeometryObject() throws IOException {
+        Point point = new Point();
+        Point point1 = new Point(1, 2);
+        LineString ls1 = new LineString(new double[]{1, 2});
+        LineString ls6 = new LineString(new double[]{-1, 0, -3.0d, 4.0d, 5, 6});
+        MultiLineString mls5 = new MultiLineString(new LineString[]{ls1, ls6});
+        MultiPoint mp5 = new MultiPoint(new Point[]{point, point1, point, point1});
+        Polygon pl1 = new Polygon(new LineString(new double[]{35, 10, 45, 45, 15, 40, 10, 20, 35, 10}), null);
+        MultiPolygon mpg2 = new MultiPolygon(new Polygon[]{pl1, pl1});
+
+        check(new GeometryCollection<>());
+        check(new GeometryCollection<>(new Geometry[]{}));
+        check(new GeometryCollection<>(new Geometry[]{point}));
+        check(new GeometryCollection<>(new Geometry[]{point, point1, ls1, ls6}));
+        check(new GeometryCollection<>(new Geometry[]{new MultiLineString(), mls5, new MultiPoint(), mp5}));
+        check(new GeometryCollection<>(new Geometry[]{mp5, mls5, point, new Polygon(), pl1, new MultiPolygon(), mpg2}));
+        check(new GeometryCollection<>(new Geometry[]{new GeometryCollection<>(new Geometry[]{point1, new GeometryCollection<>()})}));
+    }
+
+    @Test
+    public void shouldReadMixedByteOrders() throws IOException {
+        byte[] member = littleEndianWriter.write(new Point(1, 2));
+        ByteBuffer wkb = ByteBuffer.allocate(1 + 4 + 4 + member.length);
+        wkb.put(WKBWriter.BIG_ENDIAN).putInt(WKBWriter.MULTIPOINT).putInt(1).put(member).flip();
+
+        assertEquals(new MultiPoint(new Point[]{new Point(1, 2)}), wkbReader.read(wkb));
+        assertEquals(0, wkb.remaining());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectTruncatedInput() throws IOException {
+        byte[] wkb = bigEndianWriter.write(new LineString(new double[]{1, 2, 3, 4}));
+        wkbReader.read(ByteBuffer.wrap(wkb, 0, wkb.length - 1));
+    }
+
+    @Test
+    public void shouldRejectZAndM() throws IOException {
+        WKTReader wktReader = new WKTReader();
+        for (String wkt : new String[]{"POINT Z (1 2 3)", "LINESTRING Z (1 2 3, 4 5 6)", "LINESTRING M EMPTY",
+                "POLYGON M ((0 0 1, 1 0 1, 1 1 1, 0 0 1))", "MULTIPOINT Z EMPTY", "MULTILINESTRING Z ((1 2 3, 4 5 6))",
+                "GEOMETRYCOLLECTION (LINESTRING ZM (1 2 3 4, 5 6 7 8))", "SRID=4326;POINT (1 2)"}) {
+            Geometry geometry = wktReader.read(wkt);
+            try {
+                bigEndianWriter.write(geometry);
+                fail("Wrote " + wkt + " as WKB");
+            } catch (IOException expected) {
+                // expected
+            }
+            try {
+                bigEndianWriter.write(geometry, ByteBuffer.allocate(1024));
+                fail("Wrote " + wkt + " as WKB");
+            } catch (IOException expected) {
+                // expected
+            }
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02X", b));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,797 @@
+package company;
+
+import com.sinergise.geometry.*;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Randomized round trips of generated geometry trees through every reading and writing path, each
+ * compared with the plain {@link WKTWriter} and {@link WKTReader}. A failing case is shrunk to a minimal
+ * geometry that still fails the same property before it is reported. The substring-based reader that the
+ * cursor parser replaced is no longer in the tree, so the paths are compared with each other and with the
+ * generated geometry rather than with the old implementation.
+ * <p>
+ * Geometries are also generated with z and m and with an SRID prefix, which the push parser, columnar
+ * batches and WKB must reject. The parallel reader also reads the text with the Z and ZM tags removed,
+ * the untagged form, as {@link WKTReader} does. NaN and infinite ordinates have no WKT form, so the round
+ * trips use finite ones and a separate test checks that the writers reject the others.
+ * <p>
+ * Case i of a run uses the seed wkt.fuzz.seed + i, so a reported seed is reproduced on its own with
+ * <code>-Dwkt.fuzz.seed=&lt;seed&gt; -Dwkt.fuzz.cases=1</code>. Longer runs are configured with
+ * <code>-Dwkt.fuzz.cases=1000000 -Dwkt.fuzz.seconds=600</code>, the run stopping at whichever limit comes
+ * first.
+ */
+public class TestWKTFuzz {
+
+    private static final long SEED = Long.getLong("wkt.fuzz.seed", 25);
+    private static final int CASES = Integer.getInteger("wkt.fuzz.cases", 2000);
+    private static final long SECONDS = Long.getLong("wkt.fuzz.seconds", 60);
+    private static final int MAX_SHRINK_STEPS = 10000;
+
+    private static final double[] EXTREME_ORDINATES = {
+            0, -0.0, 1, -1, 0.1, 1e-7, 123456789.123, Double.MAX_VALUE, -Double.MAX_VALUE, Double.MIN_VALUE,
+            Double.MIN_NORMAL, 1e300, -1e-300, 9007199254740993.0, 0.30000000000000004, Math.ulp(1.0)
+    };
+
+    private interface Property {
+        void check(Geometry geometry, Random random) throws Exception;
+    }
+
+    private static final class NamedProperty {
+        final String name;
+        final Property property;
+
+        NamedProperty(String name, Property property) {
+            this.name = name;
+            this.property = property;
+        }
+    }
+
+    private static WKTWriter writer;
+    private static WKTReader reader;
+    private static ForkJoinPool pool;
+    private static List<NamedProperty> properties;
+
+    @BeforeClass
+    public static void setUp() {
+        writer = new WKTWriter();
+        reader = new WKTReader();
+        pool = new ForkJoinPool(2);
+        WKTWriter compactWriter = new WKTWriter(WKTWriterConfig.builder().compact(true).build());
+        WKTWriter simplifyingWriter = new WKTWriter(WKTWriterConfig.builder().decimalPlaces(1).removeDuplicates(true)
+                .simplifyTolerance(10).build());
+        ParallelWKTReader parallelReader = new ParallelWKTReader(pool, 32);
+        WKBWriter bigEndian = new WKBWriter(ByteOrder.BIG_ENDIAN);
+        WKBWriter littleEndian = new WKBWriter(ByteOrder.LITTLE_ENDIAN);
+        WKBReader wkbReader = new WKBReader();
+        TestWKTPushParser.GeometryBuilder builder = new TestWKTPushParser.GeometryBuilder();
+        WKTPushParser pushParser = new WKTPushParser(builder);
+
+        properties = new ArrayList<>();
+        properties.add(new NamedProperty("string", (geometry, random) ->
+                assertEquals(geometry, reader.read(writer.write(geometry)))));
+        properties.add(new NamedProperty("bytes", (geometry, random) -> {
+            byte[] bytes = writer.write(geometry).getBytes(StandardCharsets.US_ASCII);
+            assertEquals(geometry, reader.read(bytes, 0, bytes.length));
+        }));
+        properties.add(new NamedProperty("compact", (geometry, random) ->
+                assertEquals(geometry, reader.read(compactWriter.write(geometry)))));
+        properties.add(new NamedProperty("simplified", (geometry, random) -> {
+            Geometry simplified = reader.read(simplifyingWriter.write(geometry));
+            assertEquals(simplified.getClass(), geometry.getClass());
+            assertTrue(WKTWriter.countVertices(simplified) <= WKTWriter.countVertices(geometry));
+        }));
+        properties.add(new NamedProperty("channel", (geometry, random) -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writer.write(geometry, Channels.newChannel(out));
+            assertEquals(writer.write(geometry), new String(out.toByteArray(), StandardCharsets.US_ASCII));
+        }));
+        properties.add(new NamedProperty("push", (geometry, random) -> {
+            String wkt = writer.write(geometry);
+            pushParser.reset();
+            builder.reset();
+            if (!isPlanar(geometry)) {
+                try {
+                    pushParser.feed(wkt);
+                    pushParser.finish();
+                    fail("Pushed " + wkt);
+                } catch (WKTParseException expected) {
+                    assertTrue(expected.getMessage().contains("not supported by the push parser"));
+                    return;
+                }
+            }
+            int start = 0;
+            while (start < wkt.length()) {
+                int end = Math.min(wkt.length(), start + 1 + random.nextInt(64));
+                pushParser.feed(wkt, start, end);
+                start = end;
+            }
+            pushParser.finish();
+            assertEquals(geometry, builder.getResult());
+        }));
+        properties.add(new NamedProperty("lazy", (geometry, random) -> {
+            WKTLazyGeometry lazy = reader.readLazy(writer.write(geometry));
+            assertEquals(WKTWriter.countVertices(geometry), lazy.getNumCoordinates());
+            assertEquals(geometry, lazy.getGeometry());
+        }));
+        properties.add(new NamedProperty("parallel", (geometry, random) ->
+                assertEquals(geometry, parallelReader.read(writer.write(geometry)))));
+        properties.add(new NamedProperty("parallel untagged", (geometry, random) -> {
+            // z is implied by the number of ordinates, as PostGIS writes it
+            String untagged = writer.write(geometry).replaceAll("(?<=[A-Z]) ZM? (?=[(E])", " ");
+            assertEquals(reader.read(untagged), parallelReader.read(untagged));
+        }));
+        properties.add(new NamedProperty("envelope", (geometry, random) -> {
+            WKTEnvelope envelope = reader.readEnvelope(writer.write(geometry));
+            double[] bounds = {Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+            bounds(geometry, bounds);
+            assertEquals(WKTWriter.countVertices(geometry), envelope.getNumVertices());
+            assertEquals(bounds[0], envelope.getMinX(), 0);
+            assertEquals(bounds[1], envelope.getMinY(), 0);
+            assertEquals(bounds[2], envelope.getMaxX(), 0);
+            assertEquals(bounds[3], envelope.getMaxY(), 0);
+        }));
+        properties.add(new NamedProperty("columnar", (geometry, random) -> {
+            if (isCollection(geometry)) {
+                return;
+            }
+            String wkt = writer.write(geometry);
+            if (!isPlanar(geometry)) {
+                try {
+                    WKTColumnarDecoder.decode(Arrays.asList(wkt));
+                    fail("Decoded " + wkt);
+                } catch (WKTParseException expected) {
+                    return;
+                }
+            }
+            StringBuilder encoded = new StringBuilder();
+            writer.write(WKTColumnarDecoder.decode(Arrays.asList(wkt)), 0, encoded);
+            assertEquals(wkt, encoded.toString());
+        }));
+        properties.add(new NamedProperty("wkb", (geometry, random) -> {
+            if (!isPlanar(geometry)) {
+                try {
+                    littleEndian.write(geometry);
+                    fail("Wrote " + describe(geometry) + " as WKB");
+                } catch (IOException expected) {
+                    return;
+                }
+            }
+            assertEquals(geometry, wkbReader.read(bigEndian.write(geometry)));
+            assertEquals(geometry, wkbReader.read(littleEndian.write(geometry)));
+        }));
+    }
+
+    @AfterClass
+    public static void tearDown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldAgreeOnRandomGeometries() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+        int cases = 0;
+        for (int i = 0; i < CASES && System.nanoTime() < deadline; i++) {
+            long seed = SEED + i;
+            Geometry geometry = new Generator(new Random(seed)).record();
+            for (NamedProperty property : properties) {
+                Throwable failure = failure(property, geometry, seed);
+                if (failure != null) {
+                    Geometry minimal = shrink(property, geometry, seed);
+                    AssertionError error = new AssertionError("Property " + property.name + " fails for seed " + seed
+                            + ", shrunk to " + describe(minimal) + ": " + failure(property, minimal, seed));
+                    error.initCause(failure);
+                    throw error;
+                }
+            }
+            cases++;
+        }
+        assertTrue(cases > 0);
+    }
+
+    @Test
+    public void shouldRejectNonFiniteOrdinates() {
+        WKTWriter[] writers = {writer, new WKTWriter(WKTWriterConfig.builder().compact(true).build()),
+                new WKTWriter(WKTWriterConfig.builder().decimalPlaces(3).build())};
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+        int rejected = 0;
+        for (int i = 0; i < CASES && System.nanoTime() < deadline; i++) {
+            long seed = SEED + i;
+            Geometry geometry = new Generator(new Random(seed), true).record();
+            if (isFinite(geometry)) {
+                continue;
+            }
+            for (WKTWriter nonFiniteWriter : writers) {
+                try {
+                    fail("Seed " + seed + " wrote non-finite ordinates as " + nonFiniteWriter.write(geometry));
+                } catch (IOException expected) {
+                    // expected
+                }
+            }
+            rejected++;
+        }
+        assertTrue(rejected > 0);
+    }
+
+    @Test
+    public void shouldShrinkToMinimalGeometry() throws Exception {
+        // any geometry with a vertex that has an x of 7 fails, the minimal one is POINT (7 0)
+        NamedProperty noSeven = new NamedProperty("no seven", (geometry, random) -> {
+            if (writer.write(geometry).matches(".*[(, ]7 .*")) {
+                fail();
+            }
+        });
+        Geometry geometry = new GeometryCollection<>(new Geometry[]{
+                new MultiPolygon(new Polygon[]{new Polygon(
+                        new LineString(new double[]{0, 0, 10, 0, 7, 10.5, 0, 0}),
+                        new LineString[]{new LineString(new double[]{1, 1, 2, 1, 1, 2, 1, 1})})}),
+                new LineString(new double[]{1, 2, 3, 4, 5, 6})});
+        assertEquals("POINT (7 0)", writer.write(shrink(noSeven, geometry, SEED)));
+    }
+
+    private static Throwable failure(NamedProperty property, Geometry geometry, long seed) {
+        try {
+            property.property.check(geometry, new Random(seed));
+            return null;
+        } catch (Throwable e) {
+            return e;
+        }
+    }
+
+    /**
+     * Greedily replaces the geometry with the first smaller candidate that still fails, until none does.
+     */
+    private static Geometry shrink(NamedProperty property, Geometry geometry, long seed) {
+        Geometry current = geometry;
+        int steps = 0;
+        boolean shrunk = true;
+        while (shrunk && steps < MAX_SHRINK_STEPS) {
+            shrunk = false;
+            for (Geometry candidate : candidates(current)) {
+                steps++;
+                if (failure(property, candidate, seed) != null) {
+                    current = candidate;
+                    shrunk = true;
+                    break;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Smaller variants of the geometry, the most reducing first.
+     */
+    private static List<Geometry> candidates(Geometry geometry) {
+        List<Geometry> candidates = new ArrayList<>();
+        if (geometry instanceof EWKTGeometry) {
+            EWKTGeometry ewkt = (EWKTGeometry) geometry;
+            candidates.add(ewkt.getGeometry());
+            for (Geometry candidate : candidates(ewkt.getGeometry())) {
+                candidates.add(new EWKTGeometry(ewkt.getSrid(), candidate));
+            }
+        } else if (geometry instanceof PointZM) {
+            PointZM point = (PointZM) geometry;
+            if (!point.isEmpty()) {
+                candidates.add(new Point(point.getX(), point.getY()));
+            }
+        } else if (geometry instanceof Point) {
+            Point point = (Point) geometry;
+            if (!point.isEmpty()) {
+                candidates.add(new Point());
+                for (double[] xy : simpler(new double[]{point.getX(), point.getY()})) {
+                    candidates.add(new Point(xy[0], xy[1]));
+                }
+            }
+        } else if (geometry instanceof LineString) {
+            LineString line = (LineString) geometry;
+            if (!line.isEmpty()) {
+                candidates.add(new LineString());
+                if (line.getNumCoords() >= 2) {
+                    candidates.add(new Point(line.getX(0), line.getY(0)));
+                }
+                for (double[] coords : shrinkCoords(coords(line), false)) {
+                    candidates.add(new LineString(coords));
+                }
+            }
+        } else if (geometry instanceof Polygon) {
+            Polygon polygon = (Polygon) geometry;
+            if (!polygon.isEmpty()) {
+                candidates.add(new Polygon());
+                candidates.add(polygon.getOuter());
+                LineString[] holes = holes(polygon);
+                for (int i = 0; i < holes.length; i++) {
+                    candidates.add(new Polygon(polygon.getOuter(), remove(holes, i)));
+                }
+                for (double[] outer : shrinkCoords(coords(polygon.getOuter()), true)) {
+                    candidates.add(new Polygon(new LineString(outer), holes));
+                }
+                for (int i = 0; i < holes.length; i++) {
+                    if (!holes[i].isEmpty()) {
+                        for (double[] hole : shrinkCoords(coords(holes[i]), true)) {
+                            LineString[] shrunk = holes.clone();
+                            shrunk[i] = new LineString(hole);
+                            candidates.add(new Polygon(polygon.getOuter(), shrunk));
+                        }
+                    }
+                }
+            }
+        } else if (geometry instanceof GeometryCollection) {
+            GeometryCollection<?> collection = (GeometryCollection<?>) geometry;
+            List<Geometry> members = new ArrayList<>();
+            collection.forEach(members::add);
+            for (Geometry member : members) {
+                candidates.add(member);
+            }
+            for (int i = 0; i < members.size(); i++) {
+                List<Geometry> removed = new ArrayList<>(members);
+                removed.remove(i);
+                candidates.add(rebuild(collection, removed));
+            }
+            for (int i = 0; i < members.size(); i++) {
+                for (Geometry member : candidates(members.get(i))) {
+                    if (collection.getClass() == GeometryCollection.class || member.getClass() == members.get(i).getClass()) {
+                        List<Geometry> replaced = new ArrayList<>(members);
+                        replaced.set(i, member);
+                        candidates.add(rebuild(collection, replaced));
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Coordinates with halves, quarters, ... down to single vertices removed, then with simpler ordinates.
+     * A ring keeps at least 4 vertices and stays closed.
+     */
+    private static List<double[]> shrinkCoords(double[] coords, boolean ring) {
+        List<double[]> candidates = new ArrayList<>();
+        int open = ring ? coords.length - 2 : coords.length;
+        int vertices = open / 2;
+        int minimum = ring ? 3 : 1;
+        for (int chunk = vertices / 2; chunk >= 1; chunk /= 2) {
+            for (int from = 0; from + chunk <= vertices && vertices - chunk >= minimum; from += chunk) {
+                double[] removed = new double[open - chunk * 2];
+                System.arraycopy(coords, 0, removed, 0, from * 2);
+                System.arraycopy(coords, (from + chunk) * 2, removed, from * 2, open - (from + chunk) * 2);
+                candidates.add(ring ? close(removed) : removed);
+            }
+        }
+        for (double[] simpler : simpler(Arrays.copyOf(coords, open))) {
+            candidates.add(ring ? close(simpler) : simpler);
+        }
+        return candidates;
+    }
+
+    /**
+     * The ordinates all rounded, then each ordinate of the first vertices set to 0 or rounded.
+     */
+    private static List<double[]> simpler(double[] ordinates) {
+        List<double[]> candidates = new ArrayList<>();
+        double[] rounded = ordinates.clone();
+        for (int i = 0; i < rounded.length; i++) {
+            rounded[i] = simpler(rounded[i]);
+        }
+        if (!Arrays.equals(rounded, ordinates)) {
+            candidates.add(rounded);
+        }
+        for (int i = 0; i < Math.min(ordinates.length, 16); i++) {
+            for (double value : new double[]{0, simpler(ordinates[i])}) {
+                if (Double.compare(value, ordinates[i]) != 0) {
+                    double[] changed = ordinates.clone();
+                    changed[i] = value;
+                    candidates.add(changed);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static double simpler(double value) {
+        double rounded = Math.rint(value);
+        return Math.abs(rounded) < 1e6 ? rounded + 0.0 : value;
+    }
+
+    private static double[] close(double[] open) {
+        double[] closed = Arrays.copyOf(open, open.length + 2);
+        closed[open.length] = open[0];
+        closed[open.length + 1] = open[1];
+        return closed;
+    }
+
+    private static double[] coords(LineString line) {
+        double[] coords = new double[line.getNumCoords() * 2];
+        for (int i = 0; i < line.getNumCoords(); i++) {
+            coords[i * 2] = line.getX(i);
+            coords[i * 2 + 1] = line.getY(i);
+        }
+        return coords;
+    }
+
+    private static LineString[] holes(Polygon polygon) {
+        LineString[] holes = new LineString[polygon.getNumHoles()];
+        for (int i = 0; i < holes.length; i++) {
+            holes[i] = polygon.getHole(i);
+        }
+        return holes;
+    }
+
+    private static LineString[] remove(LineString[] holes, int i) {
+        List<LineString> removed = new ArrayList<>(Arrays.asList(holes));
+        removed.remove(i);
+        return removed.toArray(new LineString[0]);
+    }
+
+    private static Geometry rebuild(GeometryCollection<?> collection, List<Geometry> members) {
+        if (collection instanceof GeometryZM && members.isEmpty()) {
+            GeometryZM zm = (GeometryZM) collection;
+            if (collection instanceof MultiPointZM) {
+                return new MultiPointZM(zm.hasZ(), zm.hasM());
+            }
+            return collection instanceof MultiLineStringZM ? new MultiLineStringZM(zm.hasZ(), zm.hasM()) : new MultiPolygonZM(zm.hasZ(), zm.hasM());
+        }
+        if (collection instanceof MultiPointZM) {
+            return new MultiPointZM(members.toArray(new PointZM[0]));
+        }
+        if (collection instanceof MultiLineStringZM) {
+            return new MultiLineStringZM(members.toArray(new LineStringZM[0]));
+        }
+        if (collection instanceof MultiPolygonZM) {
+            return new MultiPolygonZM(members.toArray(new PolygonZM[0]));
+        }
+        if (collection instanceof MultiPoint) {
+            return new MultiPoint(members.toArray(new Point[0]));
+        }
+        if (collection instanceof MultiLineString) {
+            return new MultiLineString(members.toArray(new LineString[0]));
+        }
+        if (collection instanceof MultiPolygon) {
+            return new MultiPolygon(members.toArray(new Polygon[0]));
+        }
+        return new GeometryCollection<>(members);
+    }
+
+    /**
+     * Whether the geometry is a plain collection, the only kind that can nest further collections.
+     */
+    private static boolean isCollection(Geometry geometry) {
+        return geometry.getClass() == GeometryCollection.class;
+    }
+
+    /**
+     * Whether all written ordinates of the geometry are finite; the ordinates of empty points are not written.
+     */
+    private static boolean isFinite(Geometry geometry) {
+        if (geometry instanceof Point) {
+            Point point = (Point) geometry;
+            return point.isEmpty() || Double.isFinite(point.getX()) && Double.isFinite(point.getY());
+        }
+        if (geometry instanceof PointZM) {
+            PointZM point = (PointZM) geometry;
+            return point.isEmpty() || Double.isFinite(point.getX()) && Double.isFinite(point.getY())
+                    && (!point.hasZ() || Double.isFinite(point.getZ())) && (!point.hasM() || Double.isFinite(point.getM()));
+        }
+        if (geometry instanceof EWKTGeometry) {
+            return isFinite(((EWKTGeometry) geometry).getGeometry());
+        }
+        if (geometry instanceof LineString) {
+            LineString line = (LineString) geometry;
+            LineStringZM zm = line instanceof LineStringZM ? (LineStringZM) line : null;
+            for (int i = 0; i < line.getNumCoords(); i++) {
+                if (!Double.isFinite(line.getX(i)) || !Double.isFinite(line.getY(i))
+                        || zm != null && (zm.hasZ() && !Double.isFinite(zm.getZ(i)) || zm.hasM() && !Double.isFinite(zm.getM(i)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (geometry instanceof Polygon) {
+            Polygon polygon = (Polygon) geometry;
+            return polygon.isEmpty() || isFinite(polygon.getOuter()) && Arrays.stream(holes(polygon)).allMatch(TestWKTFuzz::isFinite);
+        }
+        if (geometry instanceof GeometryCollection) {
+            for (Geometry member : (GeometryCollection<?>) geometry) {
+                if (!isFinite(member)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the geometry has neither z, m nor an SRID, also in its rings and members.
+     */
+    private static boolean isPlanar(Geometry geometry) {
+        if (geometry instanceof GeometryZM || geometry instanceof EWKTGeometry) {
+            return false;
+        }
+        if (geometry instanceof Polygon) {
+            Polygon polygon = (Polygon) geometry;
+            return polygon.isEmpty() || isPlanar(polygon.getOuter()) && Arrays.stream(holes(polygon)).allMatch(TestWKTFuzz::isPlanar);
+        }
+        if (geometry instanceof GeometryCollection) {
+            for (Geometry member : (GeometryCollection<?>) geometry) {
+                if (!isPlanar(member)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void bounds(Geometry geometry, double[] bounds) {
+        if (geometry instanceof Point) {
+            Point point = (Point) geometry;
+            if (!point.isEmpty()) {
+                extend(bounds, point.getX(), point.getY());
+            }
+        } else if (geometry instanceof PointZM) {
+            PointZM point = (PointZM) geometry;
+            if (!point.isEmpty()) {
+                extend(bounds, point.getX(), point.getY());
+            }
+        } else if (geometry instanceof EWKTGeometry) {
+            bounds(((EWKTGeometry) geometry).getGeometry(), bounds);
+        } else if (geometry instanceof LineString) {
+            LineString line = (LineString) geometry;
+            for (int i = 0; i < line.getNumCoords(); i++) {
+                extend(bounds, line.getX(i), line.getY(i));
+            }
+        } else if (geometry instanceof Polygon) {
+            Polygon polygon = (Polygon) geometry;
+            if (!polygon.isEmpty()) {
+                bounds(polygon.getOuter(), bounds);
+                for (int i = 0; i < polygon.getNumHoles(); i++) {
+                    bounds(polygon.getHole(i), bounds);
+                }
+            }
+        } else if (geometry instanceof GeometryCollection) {
+            for (Geometry member : (GeometryCollection<?>) geometry) {
+                bounds(member, bounds);
+            }
+        }
+    }
+
+    private static void extend(double[] bounds, double x, double y) {
+        bounds[0] = Double.isNaN(bounds[0]) ? x : Math.min(bounds[0], x);
+        bounds[1] = Double.isNaN(bounds[1]) ? y : Math.min(bounds[1], y);
+        bounds[2] = Double.isNaN(bounds[2]) ? x : Math.max(bounds[2], x);
+        bounds[3] = Double.isNaN(bounds[3]) ? y : Math.max(bounds[3], y);
+    }
+
+    private static String describe(Geometry geometry) {
+        try {
+            return writer.write(geometry);
+        } catch (Exception e) {
+            return geometry.toString();
+        }
+    }
+
+    /**
+     * Random geometry trees: every type with or without z and m, empty geometries and members, extreme
+     * ordinates, rarely a ring of thousands of vertices or collections nested dozens of levels deep.
+     */
+    private static final class Generator {
+
+        private static final int MAX_DEPTH = 3;
+        private static final int DEEP_NESTING = 40;
+        private static final WKTDimension[] TAGGED = {WKTDimension.XYZ, WKTDimension.XYM, WKTDimension.XYZM};
+        private static final double[] NON_FINITE = {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+        private final Random random;
+        private final boolean nonFinite;
+        private WKTDimension dimension = WKTDimension.XY;
+
+        Generator(Random random) {
+            this(random, false);
+        }
+
+        /**
+         * @param nonFinite whether ordinates can be NaN or infinite
+         */
+        Generator(Random random, boolean nonFinite) {
+            this.random = random;
+            this.nonFinite = nonFinite;
+        }
+
+        /**
+         * Random geometry, now and then with an EWKT SRID prefix.
+         */
+        Geometry record() {
+            Geometry geometry = geometry(0);
+            return random.nextInt(8) == 0 ? new EWKTGeometry(random.nextInt(100000), geometry) : geometry;
+        }
+
+        Geometry geometry(int depth) {
+            // each collection member has its own dimension
+            dimension = random.nextInt(4) == 0 ? TAGGED[random.nextInt(TAGGED.length)] : WKTDimension.XY;
+            switch (random.nextInt(depth < MAX_DEPTH ? 8 : 6)) {
+                case 0:
+                    return point();
+                case 1:
+                    return lineString(false);
+                case 2:
+                    return polygon();
+                case 3:
+                    return multiPoint();
+                case 4:
+                    return multiLineString();
+                case 5:
+                    return multiPolygon();
+                case 6:
+                    if (random.nextInt(50) == 0) {
+                        return deepCollection();
+                    }
+                    return new GeometryCollection<>(members(Geometry[]::new, () -> geometry(depth + 1)));
+                default:
+                    return geometry(depth + 1);
+            }
+        }
+
+        private Geometry deepCollection() {
+            Geometry geometry = point();
+            for (int i = 0; i < DEEP_NESTING; i++) {
+                geometry = new GeometryCollection<>(new Geometry[]{geometry});
+            }
+            return geometry;
+        }
+
+        private <T extends Geometry> T[] members(IntFunction<T[]> array, Supplier<T> member) {
+            T[] members = array.apply(random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(4));
+            for (int i = 0; i < members.length; i++) {
+                members[i] = member.get();
+            }
+            return members;
+        }
+
+        private Geometry multiPoint() {
+            if (!isTagged()) {
+                return new MultiPoint(members(Point[]::new, () -> (Point) point()));
+            }
+            PointZM[] points = members(PointZM[]::new, () -> (PointZM) point());
+            return points.length == 0 ? new MultiPointZM(hasZ(), hasM()) : new MultiPointZM(points);
+        }
+
+        private Geometry multiLineString() {
+            if (!isTagged()) {
+                return new MultiLineString(members(LineString[]::new, () -> lineString(false)));
+            }
+            LineStringZM[] lines = members(LineStringZM[]::new, () -> (LineStringZM) lineString(false));
+            return lines.length == 0 ? new MultiLineStringZM(hasZ(), hasM()) : new MultiLineStringZM(lines);
+        }
+
+        private Geometry multiPolygon() {
+            if (!isTagged()) {
+                return new MultiPolygon(members(Polygon[]::new, this::polygon));
+            }
+            PolygonZM[] polygons = members(PolygonZM[]::new, () -> (PolygonZM) polygon());
+            return polygons.length == 0 ? new MultiPolygonZM(hasZ(), hasM()) : new MultiPolygonZM(polygons);
+        }
+
+        private Geometry point() {
+            if (!isTagged()) {
+                return empty() ? new Point() : new Point(ordinate(), ordinate());
+            }
+            if (empty()) {
+                return new PointZM(hasZ(), hasM());
+            }
+            if (!hasM()) {
+                return new PointZM(ordinate(), ordinate(), ordinate());
+            }
+            return hasZ() ? new PointZM(ordinate(), ordinate(), ordinate(), ordinate()) : PointZM.withM(ordinate(), ordinate(), ordinate());
+        }
+
+        private LineString lineString(boolean ring) {
+            if (empty()) {
+                return isTagged() ? new LineStringZM(hasZ(), hasM()) : new LineString();
+            }
+            int vertices = random.nextInt(200) == 0 ? 1000 + random.nextInt(10000) : (ring ? 3 : 1) + random.nextInt(8);
+            double[] coords = new double[vertices * 2];
+            for (int i = 0; i < coords.length; i++) {
+                coords[i] = ordinate();
+                if (ring && Double.isNaN(coords[i])) {
+                    // a Polygon cannot tell that a ring is closed on a NaN vertex
+                    coords[i] = Double.POSITIVE_INFINITY;
+                }
+            }
+            if (!isTagged()) {
+                return new LineString(ring ? close(coords) : coords);
+            }
+            double[] z = hasZ() ? extraOrdinates(vertices, ring) : null;
+            double[] m = hasM() ? extraOrdinates(vertices, ring) : null;
+            return new LineStringZM(ring ? close(coords) : coords, z, m);
+        }
+
+        private double[] extraOrdinates(int vertices, boolean ring) {
+            double[] values = new double[ring ? vertices + 1 : vertices];
+            for (int i = 0; i < vertices; i++) {
+                values[i] = ordinate();
+            }
+            if (ring) {
+                values[vertices] = values[0];
+            }
+            return values;
+        }
+
+        private Polygon polygon() {
+            if (empty()) {
+                return isTagged() ? new PolygonZM(hasZ(), hasM()) : new Polygon();
+            }
+            LineString outer;
+            do {
+                outer = lineString(true);
+            } while (outer.isEmpty());
+            if (!isTagged()) {
+                LineString[] holes = new LineString[random.nextInt(4)];
+                for (int i = 0; i < holes.length; i++) {
+                    holes[i] = lineString(true);
+                }
+                return new Polygon(outer, holes);
+            }
+            LineStringZM[] holes = new LineStringZM[random.nextInt(4)];
+            for (int i = 0; i < holes.length; i++) {
+                holes[i] = (LineStringZM) lineString(true);
+            }
+            return new PolygonZM((LineStringZM) outer, holes);
+        }
+
+        private double ordinate() {
+            switch (random.nextInt(6)) {
+                case 0:
+                    return random.nextInt(2001) - 1000;
+                case 1:
+                    return (random.nextInt(200001) - 100000) / 64.0;
+                case 2:
+                    return (random.nextDouble() - 0.5) * 360;
+                case 3:
+                    return EXTREME_ORDINATES[random.nextInt(EXTREME_ORDINATES.length)] * (random.nextBoolean() ? 1 : -1);
+                case 4:
+                    if (nonFinite && random.nextInt(4) == 0) {
+                        return NON_FINITE[random.nextInt(NON_FINITE.length)];
+                    }
+                    double bits = Double.longBitsToDouble(random.nextLong());
+                    return Double.isNaN(bits) || Double.isInfinite(bits) ? 0 : bits;
+                default:
+                    return random.nextInt(10) / 10.0;
+            }
+        }
+
+        private boolean empty() {
+            return random.nextInt(10) == 0;
+        }
+
+        private boolean isTagged() {
+            return dimension != WKTDimension.XY;
+        }
+
+        private boolean hasZ() {
+            return dimension.hasZ();
+        }
+
+        private boolean hasM() {
+            return dimension.hasM();
+        }
+    }
+}
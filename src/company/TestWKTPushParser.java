@@ -0,0 +1,235 @@
+package company;
+
+import com.sinergise.geometry.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestWKTPushParser {
+
+    private static final String[] INPUTS = {
+            "POINT (30 10)",
+            "POINT EMPTY",
+            "LINESTRING (30 10, 10 30, 40.5 -4e2)",
+            "LINESTRING EMPTY",
+            "POLYGON ((35 10, 45 45, 15 40, 10 20, 35 10), (20 30, 35 35, 30 20, 20 30), LINESTRING EMPTY)",
+            "POLYGON EMPTY",
+            "MULTIPOINT ((10 40), (40 30), EMPTY, POINT EMPTY, POINT (1 2))",
+            "MULTIPOINT (10 40, 40 30)",
+            "MULTILINESTRING ((10 10, 20 20, 10 40), LINESTRING EMPTY, EMPTY, LINESTRING (1 2, 3 4))",
+            "MULTIPOLYGON (((30 20, 45 40, 10 40, 30 20)), (POLYGON EMPTY), EMPTY, POLYGON ((15 5, 40 10, 10 20, 15 5)))",
+            "GEOMETRYCOLLECTION (POINT (4 6), GEOMETRYCOLLECTION (LINESTRING (4 6, 7 10), POINT EMPTY), MULTIPOINT EMPTY)",
+            "geometrycollection(point(4 6),linestring(4 6,7 10))",
+    };
+
+    @Test
+    public void shouldMatchReaderForAnyChunking() throws IOException {
+        WKTReader reader = new WKTReader();
+        GeometryBuilder builder = new GeometryBuilder();
+        WKTPushParser parser = new WKTPushParser(builder);
+        Random random = new Random(15);
+        for (String wkt : INPUTS) {
+            Geometry expected = reader.read(wkt);
+
+            parser.feed(wkt);
+            parser.finish();
+            assertEquals(wkt, expected, builder.getResult());
+
+            for (int i = 0; i < wkt.length(); i++) {
+                parser.feed(wkt, i, i + 1);
+            }
+            parser.finish();
+            assertEquals(wkt, expected, builder.getResult());
+
+            int start = 0;
+            while (start < wkt.length()) {
+                int end = Math.min(wkt.length(), start + 1 + random.nextInt(7));
+                parser.feed(wkt.substring(start, end).toCharArray(), 0, end - start);
+                start = end;
+            }
+            parser.finish();
+            assertEquals(wkt, expected, builder.getResult());
+
+            ByteBuffer bytes = ByteBuffer.wrap(wkt.getBytes(StandardCharsets.US_ASCII));
+            parser.feed(bytes);
+            assertEquals(0, bytes.remaining());
+            parser.finish();
+            assertEquals(wkt, expected, builder.getResult());
+        }
+    }
+
+    @Test
+    public void shouldReportEvents() throws IOException {
+        StringBuilder events = new StringBuilder();
+        WKTPushParser parser = new WKTPushParser(new WKTEventHandler() {
+            @Override
+            public void startGeometry(String type) {
+                events.append(type).append('[');
+            }
+
+            @Override
+            public void startRing() {
+                events.append('(');
+            }
+
+            @Override
+            public void coordinate(double x, double y) {
+                events.append(x).append(' ').append(y).append(';');
+            }
+
+            @Override
+            public void endRing() {
+                events.append(')');
+            }
+
+            @Override
+            public void endGeometry() {
+                events.append(']');
+            }
+        });
+        parser.feed("MULTIPOLYGON (((1 2, 3 4, 1 2)), EMP");
+        parser.feed("TY)");
+        parser.finish();
+        assertEquals("MULTIPOLYGON[POLYGON[(1.0 2.0;3.0 4.0;1.0 2.0;)]POLYGON[]]", events.toString());
+    }
+
+    @Test
+    public void shouldRejectInvalidInput() {
+        String[] invalid = {"POINT (1 2", "POINT (1 2, 3 4)", "POINT (1 2) 3", "LINESTRING (1 2, 3)", "POLYGON (LINESTRING EMPTY)",
+                "MULTIPOINT (LINESTRING EMPTY)", "CIRCLE (1 2)", "POINT (1 2x)", "POINT ()", "POINT (1 2))", "", "POINT"};
+        for (String wkt : invalid) {
+            WKTPushParser parser = new WKTPushParser(new WKTEventHandler() {
+            });
+            try {
+                parser.feed(wkt);
+                parser.finish();
+                fail("Parsed invalid input " + wkt);
+            } catch (IOException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void shouldRejectZAndMAndSrid() throws IOException {
+        String[] unsupported = {"POINT Z (1 2 3)", "pointzm (1 2 3 4)", "POINT (1 2 3)", "LINESTRING (1 2 3, 4 5 6)",
+                "LINESTRING M EMPTY", "MULTIPOINT (POINT M EMPTY)", "SRID=4326;POINT (1 2)"};
+        for (String wkt : unsupported) {
+            WKTPushParser parser = new WKTPushParser(new WKTEventHandler() {
+            });
+            try {
+                parser.feed(wkt);
+                parser.finish();
+                fail("Parsed unsupported input " + wkt);
+            } catch (WKTParseException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().contains("not supported by the push parser"));
+            }
+        }
+    }
+
+    /**
+     * Builds the geometry from the events, the same objects {@link WKTReader} would.
+     */
+    static final class GeometryBuilder implements WKTEventHandler {
+
+        private static final class Frame {
+            final String type;
+            final List<Geometry> members = new ArrayList<>();
+            final List<LineString> rings = new ArrayList<>();
+            Point point = new Point();
+
+            Frame(String type) {
+                this.type = type;
+            }
+        }
+
+        private final Deque<Frame> frames = new ArrayDeque<>();
+        private final CoordinateBuffer ring = new CoordinateBuffer();
+        private boolean inRing;
+        private Geometry result;
+
+        Geometry getResult() {
+            return result;
+        }
+
+        /**
+         * Drops what was built of a geometry the parser rejected.
+         */
+        void reset() {
+            frames.clear();
+            inRing = false;
+            result = null;
+        }
+
+        @Override
+        public void startGeometry(String type) {
+            frames.push(new Frame(type));
+        }
+
+        @Override
+        public void startRing() {
+            ring.clear();
+            inRing = true;
+        }
+
+        @Override
+        public void coordinate(double x, double y) {
+            if (inRing) {
+                ring.add(x, y);
+            } else {
+                frames.peek().point = new Point(x, y);
+            }
+        }
+
+        @Override
+        public void endRing() {
+            frames.peek().rings.add(ring.size() == 0 ? new LineString() : new LineString(ring.toArray()));
+            inRing = false;
+        }
+
+        @Override
+        public void endGeometry() {
+            Frame frame = frames.pop();
+            Geometry geometry = build(frame);
+            if (frames.isEmpty()) {
+                result = geometry;
+            } else {
+                frames.peek().members.add(geometry);
+            }
+        }
+
+        private static Geometry build(Frame frame) {
+            switch (frame.type) {
+                case "POINT":
+                    return frame.point;
+                case "LINESTRING":
+                    return frame.rings.isEmpty() ? new LineString() : frame.rings.get(0);
+                case "POLYGON":
+                    if (frame.rings.isEmpty()) {
+                        return new Polygon();
+                    }
+                    List<LineString> holes = frame.rings.subList(1, frame.rings.size());
+                    return new Polygon(frame.rings.get(0), holes.isEmpty() ? null : holes.toArray(new LineString[holes.size()]));
+                case "MULTIPOINT":
+                    return frame.members.isEmpty() ? new MultiPoint() : new MultiPoint(frame.members.toArray(new Point[0]));
+                case "MULTILINESTRING":
+                    return frame.members.isEmpty() ? new MultiLineString() : new MultiLineString(frame.members.toArray(new LineString[0]));
+                case "MULTIPOLYGON":
+                    return frame.members.isEmpty() ? new MultiPolygon() : new MultiPolygon(frame.members.toArray(new Polygon[0]));
+                default:
+                    return frame.members.isEmpty() ? new GeometryCollection<>() : new GeometryCollection<>(frame.members);
+            }
+        }
+    }
+}
@@ -4,9 +4,33 @@ import com.sinergise.geometry.*;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class TestWKTReaderAndWriter {
 
@@ -259,5 +283,938 @@ public class TestWKTReaderAndWriter {
         assertEquals(geometryCollection, geometryCollectionObject);
     }
 
+    @Test
+    public void shouldReadWktVariants() throws IOException {
+        assertEquals(new Point(1, 2), wktReader.read("POINT(1 2)"));
+        assertEquals(new Point(1, 2), wktReader.read("  point ( 1   2 )  "));
+        assertEquals(new LineString(new double[]{1, 2, 3, 4}), wktReader.read("LINESTRING(1 2,3 4)"));
+        assertEquals(new MultiPoint(new Point[]{new Point(1, 2), new Point(3, 4)}), wktReader.read("MULTIPOINT (1 2, 3 4)"));
+        assertEquals(new MultiLineString(new LineString[]{new LineString(new double[]{1, 2})}), wktReader.read("MULTILINESTRING (LINESTRING (1 2))"));
+        assertEquals(new GeometryCollection<>(new Geometry[]{new GeometryCollection<>(new Geometry[]{new Point(1, 2)})}),
+                wktReader.read("GEOMETRYCOLLECTION(GEOMETRYCOLLECTION(POINT(1 2)))"));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectUnknownType() throws IOException {
+        wktReader.read("CIRCLE (1 2)");
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectTrailingCharacters() throws IOException {
+        wktReader.read("POINT (1 2) 3");
+    }
+
+    @Test
+    public void shouldWriteAndReadFractionalCoordinates() throws IOException {
+        checkLineString(new LineString(new double[]{0.1, -2.5, 1e-7, 123456.789, -0.0, 0}), "LINESTRING (0.1 -2.5, 0.0000001 123456.789, -0 0)");
+
+        Point point = new Point(15.123456789012345, -45.5);
+        Point pointObject = (Point) wktReader.read(wktWriter.write(point));
+        assertEquals(point, pointObject);
+    }
+
+    @Test
+    public void shouldParseNumbersLikeParseDouble() throws IOException {
+        String[] numbers = {"0", "-0", "-0.0", "-0e5", "+1.5", "1e3", "1E+3", "2.5e-3", "-7e22", "1e23", "0.1e-22",
+                "123456789012345678", "1234567890123456789", "123456789012345678901234", "0.1234567890123456789012",
+                "12345678901234567890e-30", "9007199254740993", "1.7976931348623157e308", "2.2250738585072011e-308",
+                "4.9e-324", "1e-320", "000123.4500"};
+        for (String number : numbers) {
+            Point point = (Point) wktReader.read("POINT (" + number + " 0)");
+            assertEquals(number, Double.doubleToLongBits(Double.parseDouble(number)), Double.doubleToLongBits(point.getX()));
+        }
+    }
+
+    @Test
+    public void shouldRejectMalformedNumbers() {
+        for (String number : new String[]{"1e", "1e+", "1-2", ".", "--1", "-", "1.2.3", "1e5e5"}) {
+            try {
+                wktReader.read("POINT (" + number + " 0)");
+                fail("Parsed malformed number " + number);
+            } catch (IOException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void shouldRejectNonFiniteOrdinates() {
+        WKTWriter fixed = new WKTWriter(WKTWriterConfig.builder().decimalPlaces(3).build());
+        Geometry[] geometries = {new Point(1, Double.NaN), new Point(Double.POSITIVE_INFINITY, 2),
+                new LineString(new double[]{1, 2, Double.NEGATIVE_INFINITY, 4}), new PointZM(1, 2, Double.NaN)};
+        for (Geometry geom : geometries) {
+            for (WKTWriter writer : new WKTWriter[]{wktWriter, fixed}) {
+                try {
+                    writer.write(geom);
+                    fail("Wrote non-finite ordinate of " + geom);
+                } catch (IOException expected) {
+                    // expected
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldWriteToAppendable() throws IOException {
+        StringWriter out = new StringWriter();
+        out.append("geom=");
+        wktWriter.write(new Point(1.5, 2), out);
+        assertEquals("geom=POINT (1.5 2)", out.toString());
+    }
+
+    @Test
+    public void shouldStreamRecords() throws IOException {
+        double[] coords = new double[10000];
+        for (int i = 0; i < coords.length; i++) {
+            coords[i] = i * 0.5;
+        }
+        LineString longLineString = new LineString(coords);
+        String input = "POINT (1 2)\r\n\nLINESTRING (1 2, 3 4);POINT EMPTY\n" + wktWriter.write(longLineString) + "\n";
+
+        try (WKTStreamReader records = new WKTStreamReader(new StringReader(input), wktReader)) {
+            assertEquals(new Point(1, 2), records.read());
+            assertEquals(new LineString(new double[]{1, 2, 3, 4}), records.read());
+            assertEquals(new Point(), records.read());
+            assertEquals(longLineString, records.read());
+            assertNull(records.read());
+            assertEquals(4, records.getRecordNumber());
+        }
+
+        try (Stream<Geometry> stream = wktReader.stream(new StringReader(input))) {
+            assertEquals(4, stream.count());
+        }
+    }
+
+    @Test
+    public void shouldBulkLoadFileInOrder() throws IOException {
+        List<Geometry> expected = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            Geometry geometry = i % 3 == 0 ? new Point(i, -i) : new LineString(new double[]{i, 0.5, i + 1, 1.25});
+            expected.add(geometry);
+            content.append(wktWriter.write(geometry)).append(i % 7 == 0 ? ";" : "\n");
+        }
+        Path file = Files.createTempFile("bulk", ".wkt");
+        try {
+            Files.write(file, content.toString().getBytes(StandardCharsets.US_ASCII));
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                WKTBulkLoader loader = new WKTBulkLoader(wktReader, pool, 100);
+                assertEquals(expected, loader.load(file));
+
+                List<Geometry> collected = Collections.synchronizedList(new ArrayList<>());
+                loader.load(file, collected::add);
+                assertEquals(expected.size(), collected.size());
+            } finally {
+                pool.shutdown();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void shouldReadFromBytes() throws IOException {
+        String wkt = "GEOMETRYCOLLECTION (POINT (1.5 2), MULTIPOLYGON (((35 10, 45 45, 15 40, 10 20, 35 10))), LINESTRING EMPTY)";
+        Geometry expected = wktReader.read(wkt);
+        byte[] bytes = ("xx" + wkt + "yy").getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(expected, wktReader.read(bytes, 2, bytes.length - 4));
+
+        ByteBuffer heap = ByteBuffer.wrap(bytes, 2, bytes.length - 4);
+        assertEquals(expected, wktReader.read(heap));
+        assertEquals(2, heap.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes, 2, bytes.length - 4).flip();
+        assertEquals(expected, wktReader.read(direct));
+
+        WKTColumnarDecoder decoder = new WKTColumnarDecoder();
+        WKTPushParser parser = new WKTPushParser(new WKTEventHandler() {
+        });
+        char[] chars = wkt.toCharArray();
+        assertOutOfBounds(() -> wktReader.read(bytes, 2, Integer.MAX_VALUE));
+        assertOutOfBounds(() -> wktReader.readEnvelope(bytes, 2, Integer.MAX_VALUE));
+        assertOutOfBounds(() -> decoder.add(bytes, 2, Integer.MAX_VALUE));
+        assertOutOfBounds(() -> parser.feed(chars, 2, Integer.MAX_VALUE));
+    }
+
+    private interface IOCall {
+        void run() throws IOException;
+    }
+
+    /**
+     * Asserts that the call rejects its offset and length, which overflow when added.
+     */
+    private static void assertOutOfBounds(IOCall call) throws IOException {
+        try {
+            call.run();
+            fail("Accepted a length past the end of the array");
+        } catch (IndexOutOfBoundsException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldReadLazily() throws IOException {
+        String wkt = "MULTIPOLYGON (((35 10, 45 45, 15 40, 10 20, 35 10), (20 30, 35 35, 30 20, 20 30)), (POLYGON EMPTY), ((1 2, 3 4, 1 2)))";
+        WKTLazyGeometry lazy = wktReader.readLazy(wkt);
+        assertEquals("MULTIPOLYGON", lazy.getGeometryType());
+        assertEquals(3, lazy.getNumParts());
+        assertEquals(3, lazy.getNumCoordinateSequences());
+        assertEquals(12, lazy.getNumCoordinates());
+        assertEquals(new LineString(new double[]{20, 30, 35, 35, 30, 20, 20, 30}), lazy.getCoordinateSequence(1));
+        assertEquals(wktReader.read(wkt), lazy.getGeometry());
+        assertSame(lazy.getGeometry(), lazy.getGeometry());
+
+        WKTLazyGeometry empty = wktReader.readLazy("POINT EMPTY");
+        assertTrue(empty.isEmpty());
+        assertEquals(new Point(), empty.getGeometry());
+
+        WKTLazyGeometry collection = wktReader.readLazy("GEOMETRYCOLLECTION (POINT (4 6), LINESTRING EMPTY)");
+        assertEquals(2, collection.getNumParts());
+        assertEquals(1, collection.getNumCoordinates());
+
+        WKTMetricsRecorder metrics = new WKTMetricsRecorder();
+        WKTReader measured = new WKTReader(metrics);
+        WKTLazyGeometry shared = measured.readLazy(wkt);
+        measured.readEnvelope(wkt);
+        assertEquals(0, metrics.snapshot().getRead().getCount());
+        List<Geometry> parsed = IntStream.range(0, 64).parallel().mapToObj(i -> {
+            try {
+                return shared.getGeometry();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).collect(Collectors.toList());
+        for (Geometry geom : parsed) {
+            assertSame(parsed.get(0), geom);
+        }
+        assertEquals(1, metrics.snapshot().getRead().getCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectUnbalancedLazyInput() throws IOException {
+        wktReader.readLazy("POLYGON ((1 2, 3 4, 1 2)");
+    }
+
+    @Test
+    public void shouldReadEnvelope() throws IOException {
+        WKTEnvelope polygon = wktReader.readEnvelope("POLYGON ((35 10, 45 45, 15 40, 10 20, 35 10), (20 30, 35 35, 30 20, 20 30))");
+        assertEquals("POLYGON", polygon.getGeometryType());
+        assertEquals(10, polygon.getMinX(), 0);
+        assertEquals(10, polygon.getMinY(), 0);
+        assertEquals(45, polygon.getMaxX(), 0);
+        assertEquals(45, polygon.getMaxY(), 0);
+        assertEquals(9, polygon.getNumVertices());
+        assertEquals(2, polygon.getNumRings());
+        assertEquals(1, polygon.getNumParts());
+
+        byte[] bytes = "GEOMETRYCOLLECTION (POINT (-4 6), MULTIPOINT (POINT EMPTY, (1 2)), MULTIPOLYGON ((POLYGON EMPTY), ((1 2, 3 -4, 1 2))), LINESTRING EMPTY)"
+                .getBytes(StandardCharsets.US_ASCII);
+        WKTEnvelope collection = wktReader.readEnvelope(bytes, 0, bytes.length);
+        assertEquals("GEOMETRYCOLLECTION", collection.getGeometryType());
+        assertEquals(-4, collection.getMinX(), 0);
+        assertEquals(-4, collection.getMinY(), 0);
+        assertEquals(3, collection.getMaxX(), 0);
+        assertEquals(6, collection.getMaxY(), 0);
+        assertEquals(5, collection.getNumVertices());
+        assertEquals(1, collection.getNumRings());
+        assertEquals(3, collection.getNumParts());
+
+        WKTEnvelope empty = wktReader.readEnvelope("MULTIPOLYGON EMPTY");
+        assertTrue(empty.isEmpty());
+        assertTrue(Double.isNaN(empty.getMinX()));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectInvalidEnvelopeInput() throws IOException {
+        wktReader.readEnvelope("LINESTRING (1 2, 3)");
+    }
+
+    @Test
+    public void shouldCacheRepeatedInputs() throws IOException {
+        CachingWKTReader cache = new CachingWKTReader(2);
+        String polygon = "POLYGON ((35 10, 45 45, 15 40, 10 20, 35 10), (20 30, 35 35, 30 20, 20 30))";
+        Geometry first = cache.read(polygon);
+        assertSame(first, cache.read(new StringBuilder(polygon)));
+        byte[] bytes = polygon.getBytes(StandardCharsets.US_ASCII);
+        assertSame(first, cache.read(bytes, 0, bytes.length));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.read("POINT (1 2)");
+        cache.read("POLYGON EMPTY");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(wktReader.read(polygon), cache.read(polygon));
+        assertEquals(4, cache.getMissCount());
+
+        CachingWKTReader small = new CachingWKTReader(100, 200);
+        small.read(polygon);
+        assertEquals(0, small.size());
+        small.read("POINT (1 2)");
+        assertEquals(1, small.size());
+        assertTrue(small.getEstimatedBytes() <= 200);
+    }
+
+    @Test
+    public void shouldReadMembersInParallel() throws IOException {
+        StringBuilder multiPolygon = new StringBuilder("MULTIPOLYGON (");
+        for (int i = 0; i < 200; i++) {
+            multiPolygon.append(i % 50 == 7 ? "(POLYGON EMPTY)" : "((" + i + " 0, " + (i + 1) + " 0, " + i + " 1, " + i + " 0))").append(", ");
+        }
+        multiPolygon.append("EMPTY)");
+        String[] inputs = {
+                multiPolygon.toString(),
+                "MULTIPOINT (1 2, (3 4), POINT EMPTY, EMPTY)",
+                "MULTILINESTRING ((10 10, 20 20, 10 40), LINESTRING EMPTY, LINESTRING (1 2, 3 4))",
+                "GEOMETRYCOLLECTION (POINT (4 6), " + multiPolygon + ", GEOMETRYCOLLECTION (LINESTRING (4 6, 7 10)), MULTIPOINT EMPTY) ",
+                "POLYGON ((35 10, 45 45, 15 40, 10 20, 35 10))",
+                "MULTIPOINT (1 2 3, 4 5 6)",
+                "MULTIPOINT Z (EMPTY, (1 2 3))",
+                "MULTIPOINT (EMPTY, 1 2 3)",
+                "MULTILINESTRING ((1 2 3 4, 5 6 7 8), EMPTY)",
+                "MULTIPOLYGON M (((0 0 1, 1 0 1, 1 1 1, 0 0 1)), (POLYGON EMPTY))",
+                "GEOMETRYCOLLECTION (MULTIPOINT (1 2 3), POINT M (1 2 3))",
+        };
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelWKTReader parallel = new ParallelWKTReader(pool, 1);
+            for (String input : inputs) {
+                assertEquals(input, wktReader.read(input), parallel.read(input));
+            }
+            String[] invalid = {"MULTIPOINT (1 2, (3 4)", "MULTIPOLYGON (((1 2, 3 4, 1 2)), ((1 2 3 4 5)))", "GEOMETRYCOLLECTION (POINT (1 2)) x",
+                    "GEOMETRYCOLLECTION (SRID=4326;POINT (1 2), POINT (3 4))",
+                    "GEOMETRYCOLLECTION (POINT (1 2), GEOMETRYCOLLECTION (SRID=4326;POINT (3 4)))",
+                    "MULTIPOINT (1 2 3, 4 5)", "MULTILINESTRING ((1 2 3, 4 5 6), (1 2, 3 4))", "MULTIPOINT Z (1 2, 3 4)",
+                    "MULTIPOINT ((1 2 3), POINT M EMPTY)"};
+            for (String input : invalid) {
+                try {
+                    parallel.read(input);
+                    fail("Parsed invalid input " + input);
+                } catch (WKTParseException expected) {
+                    // expected
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldWriteAllInOrder() throws IOException {
+        List<Geometry> geometries = new ArrayList<>();
+        Polygon[] polygons = new Polygon[300];
+        for (int i = 0; i < polygons.length; i++) {
+            polygons[i] = i % 100 == 3 ? new Polygon() : new Polygon(new LineString(new double[]{i, 0, i + 1, 0, i, 1.5, i, 0}), null);
+        }
+        for (int i = 0; i < 1000; i++) {
+            geometries.add(i % 3 == 0 ? new Point(i, -i) : new LineString(new double[]{i, 0.5, i + 1, 1.25}));
+            if (i % 400 == 0) {
+                geometries.add(new MultiPolygon(polygons));
+                geometries.add(new GeometryCollection<>(new Geometry[]{new MultiPolygon(polygons), new Point(1, 2), new Point()}));
+                geometries.add(new MultiPolygon());
+            }
+        }
+        StringBuilder expected = new StringBuilder();
+        for (Geometry geometry : geometries) {
+            if (expected.length() > 0) {
+                expected.append('\n');
+            }
+            expected.append(wktWriter.write(geometry));
+        }
+
+        StringBuilder sequential = new StringBuilder();
+        wktWriter.writeAll(geometries, sequential, "\n");
+        assertEquals(expected.toString(), sequential.toString());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (long splitVertices : new long[]{1, 100, Long.MAX_VALUE}) {
+                StringBuilder parallel = new StringBuilder();
+                wktWriter.writeAll(geometries, parallel, "\n", pool, splitVertices);
+                assertEquals(expected.toString(), parallel.toString());
+            }
+            StringBuilder empty = new StringBuilder();
+            wktWriter.writeAll(Collections.emptyList(), empty, "\n", pool, 1);
+            assertEquals("", empty.toString());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldWriteCompleteRecordsBeforeFailure() throws IOException {
+        LineString[] lines = new LineString[50];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = new LineString(new double[]{i, 0, i + 1, i == 30 ? Double.NaN : 1});
+        }
+        Geometry[] invalid = {new Point(Double.NaN, 1), new MultiLineString(lines)};
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Geometry bad : invalid) {
+                List<Geometry> geometries = new ArrayList<>();
+                StringBuilder expected = new StringBuilder();
+                for (int i = 0; i < 200; i++) {
+                    geometries.add(i % 2 == 0 ? new Point(i, 1) : new MultiLineString(Arrays.copyOf(lines, 30)));
+                    if (expected.length() > 0) {
+                        expected.append('\n');
+                    }
+                    expected.append(wktWriter.write(geometries.get(i)));
+                }
+                geometries.add(bad);
+                geometries.add(new Point(2, 3));
+
+                StringBuilder sequential = new StringBuilder();
+                try {
+                    wktWriter.writeAll(geometries, sequential, "\n");
+                    fail("Wrote " + bad);
+                } catch (IOException expectedFailure) {
+                    assertEquals(expected.toString(), sequential.toString());
+                }
+                for (long splitVertices : new long[]{1, 100, Long.MAX_VALUE}) {
+                    StringBuilder parallel = new StringBuilder();
+                    try {
+                        wktWriter.writeAll(geometries, parallel, "\n", pool, splitVertices);
+                        fail("Wrote " + bad);
+                    } catch (IOException expectedFailure) {
+                        assertEquals(expected.toString(), parallel.toString());
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldWriteToChannel() throws IOException {
+        double[] coords = new double[20000];
+        for (int i = 0; i < coords.length; i++) {
+            coords[i] = i * 0.25;
+        }
+        Geometry geometry = new GeometryCollection<>(new Geometry[]{new LineString(coords), new Point(1, 2), new MultiPolygon()});
+        String expected = wktWriter.write(geometry);
 
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        wktWriter.write(geometry, Channels.newChannel(bytes));
+        assertEquals(expected, new String(bytes.toByteArray(), StandardCharsets.US_ASCII));
+
+        bytes.reset();
+        WKTChannelOutput out = new WKTChannelOutput(Channels.newChannel(bytes), ByteBuffer.allocate(7));
+        wktWriter.writeAll(Arrays.asList(geometry, new Point(3, 4)), out, "\n");
+        out.flush();
+        assertEquals(expected + "\nPOINT (3 4)", new String(bytes.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectNonAsciiChannelOutput() throws IOException {
+        new WKTChannelOutput(Channels.newChannel(new ByteArrayOutputStream())).append("\u00e9");
+    }
+
+    @Test
+    public void shouldReadAndWriteZAndM() throws IOException {
+        String[] roundTrips = {
+                "POINT Z (1 2 3)",
+                "POINT M (1 2 4)",
+                "POINT ZM (1 2 3 4)",
+                "POINT Z EMPTY",
+                "LINESTRING Z EMPTY",
+                "POLYGON Z EMPTY",
+                "MULTIPOINT Z EMPTY",
+                "MULTILINESTRING Z EMPTY",
+                "MULTIPOLYGON M EMPTY",
+                "LINESTRING M (1 2 5, 3 4 6)",
+                "POLYGON ZM ((0 0 1 2, 1 0 1 2, 1 1 1 2, 0 0 1 2), (0.2 0.2 0 0, 0.3 0.2 0 0, 0.2 0.3 0 0, 0.2 0.2 0 0))",
+                "MULTIPOINT Z ((1 2 3), POINT EMPTY, (4 5 6))",
+                "MULTILINESTRING Z ((1 2 3, 4 5 6), LINESTRING EMPTY)",
+                "MULTIPOLYGON Z (((0 0 1, 1 0 1, 1 1 1, 0 0 1)), (POLYGON EMPTY))",
+                "GEOMETRYCOLLECTION (POINT ZM (1 2 3 4), LINESTRING (1 2, 3 4), POINT M EMPTY)",
+                "SRID=4326;POINT (14.5 46.05)",
+                "SRID=3794;MULTIPOINT Z ((1 2 3))",
+        };
+        for (String wkt : roundTrips) {
+            assertEquals(wkt, wktWriter.write(wktReader.read(wkt)));
+        }
+
+        assertEquals(new PointZM(1, 2, 3), wktReader.read("POINT (1 2 3)"));
+        assertEquals(new PointZM(1, 2, 3, 4), wktReader.read("POINTZM(1 2 3 4)"));
+        assertEquals(PointZM.withM(1, 2, 3), wktReader.read("point m (1 2 3)"));
+        assertEquals(new LineStringZM(new double[]{1, 2, 4, 5}, new double[]{3, 6}, null),
+                wktReader.read("LINESTRING (1 2 3, 4 5 6)"));
+        assertEquals(new LineStringZM(new double[]{1, 2, 5, 6}, new double[]{3, 7}, new double[]{4, 8}),
+                wktReader.read("LINESTRING ZM (1 2 3 4, 5 6 7 8)"));
+        assertEquals(new EWKTGeometry(4326, new Point(1, 2)), wktReader.read("SRID=4326; POINT (1 2)"));
+        assertEquals(new PolygonZM(true, false), wktReader.read("POLYGON Z EMPTY"));
+        assertEquals(new MultiPolygonZM(false, true), wktReader.read("MULTIPOLYGON M EMPTY"));
+        assertEquals(new Polygon(), wktReader.read("POLYGON EMPTY"));
+        LineStringZM ring = new LineStringZM(new double[]{0, 0, 1, 0, 1, 1, 0, 0}, new double[]{1, 1, 1, 1}, null);
+        assertEquals(new MultiPolygonZM(new PolygonZM[]{new PolygonZM(ring, null), new PolygonZM(true, false)}),
+                wktReader.read("MULTIPOLYGON Z (((0 0 1, 1 0 1, 1 1 1, 0 0 1)), (POLYGON EMPTY))"));
+        assertEquals(new MultiLineStringZM(new LineStringZM[]{new LineStringZM(true, false),
+                        new LineStringZM(new double[]{1, 2, 4, 5}, new double[]{3, 6}, null)}),
+                wktReader.read("MULTILINESTRING (EMPTY, (1 2 3, 4 5 6))"));
+        assertEquals(new PolygonZM(ring, new LineStringZM[]{new LineStringZM(true, false)}),
+                wktReader.read("POLYGON ((0 0 1, 1 0 1, 1 1 1, 0 0 1), EMPTY)"));
+
+        LineString plain = new LineString(new double[]{1, 2, 3, 4});
+        Geometry withZ = wktReader.read("LINESTRING Z (1 2 9, 3 4 9)");
+        assertNotEquals(withZ, plain);
+        assertNotEquals(wktReader.read("MULTILINESTRING Z ((1 2 3))"), wktReader.read("MULTILINESTRING ((1 2))"));
+        assertEquals(withZ.hashCode(), wktReader.read("LINESTRING Z (1 2 9, 3 4 9)").hashCode());
+        assertNotEquals(withZ, wktReader.read("LINESTRING Z (1 2 9, 3 4 8)"));
+        assertNotEquals(withZ, wktReader.read("LINESTRING M (1 2 9, 3 4 9)"));
+        assertNotEquals(wktReader.read("MULTIPOINT Z EMPTY"), wktReader.read("MULTIPOINT M EMPTY"));
+        assertNotEquals(wktReader.read("MULTIPOINT Z EMPTY").hashCode(), wktReader.read("MULTIPOINT M EMPTY").hashCode());
+        assertEquals(wktReader.read("MULTIPOINT Z EMPTY"), wktReader.read("MULTIPOINT Z EMPTY"));
+
+        String[] invalid = {"POINT Z (1 2)", "POINT ZM (1 2 3)", "POINT (1 2 3 4 5)", "LINESTRING (1 2 3, 4 5)",
+                "LINESTRING Z (1 2 3, 4 5 6 7)", "SRID=4326 POINT (1 2)", "SRID=4.5;POINT (1 2)", "POINT Q (1 2)",
+                "MULTIPOINT Z ((1 2 3), POINT M EMPTY)", "MULTIPOINT ((1 2 3), POINT M (1 2 3))",
+                "MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), POLYGON Z EMPTY)"};
+        for (String wkt : invalid) {
+            try {
+                wktReader.read(wkt);
+                fail("Parsed invalid input " + wkt);
+            } catch (IOException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void shouldRejectMixedDimensions() {
+        LineStringZM withZ = new LineStringZM(new double[]{0, 0, 1, 0, 1, 1, 0, 0}, new double[]{1, 1, 1, 1}, null);
+        LineStringZM withM = new LineStringZM(new double[]{0, 0, 1, 0, 1, 1, 0, 0}, null, new double[]{1, 1, 1, 1});
+        Runnable[] constructors = {
+                () -> new MultiPointZM(new PointZM[]{new PointZM(1, 2, 3), PointZM.withM(1, 2, 3)}),
+                () -> new MultiPointZM(new PointZM[0]),
+                () -> new MultiLineStringZM(new LineStringZM[]{withZ, new LineStringZM(false, true)}),
+                () -> new PolygonZM(withZ, new LineStringZM[]{withM}),
+                () -> new MultiPolygonZM(new PolygonZM[]{new PolygonZM(withZ, null), new PolygonZM(true, true)})};
+        for (Runnable constructor : constructors) {
+            try {
+                constructor.run();
+                fail("Built a geometry of mixed dimensions");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+
+        LineString planar = new LineString(new double[]{0.2, 0.2, 0.3, 0.2, 0.2, 0.3, 0.2, 0.2});
+        Geometry[] geometries = {new Polygon(withZ, new LineString[]{planar}),
+                new MultiLineString(new LineString[]{withZ, withM}),
+                new MultiPolygon(new Polygon[]{new PolygonZM(withZ, null), new Polygon(planar, null)})};
+        for (Geometry geom : geometries) {
+            try {
+                wktWriter.write(geom);
+                fail("Wrote a geometry of mixed dimensions");
+            } catch (IOException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void shouldScanAndStreamZAndM() throws IOException {
+        WKTEnvelope envelope = wktReader.readEnvelope("SRID=4326;MULTILINESTRING ZM ((1 2 30 40, -3 4 50 60), (5 -6 70 80))");
+        assertEquals(-3, envelope.getMinX(), 0);
+        assertEquals(-6, envelope.getMinY(), 0);
+        assertEquals(5, envelope.getMaxX(), 0);
+        assertEquals(4, envelope.getMaxY(), 0);
+        assertEquals(3, envelope.getNumVertices());
+
+        WKTLazyGeometry lazy = wktReader.readLazy("SRID=4326;POLYGON M ((0 0 1, 1 0 2, 1 1 3, 0 0 1))");
+        assertEquals("POLYGON", lazy.getGeometryType());
+        assertEquals(4, lazy.getNumCoordinates());
+        assertEquals(new LineStringZM(new double[]{0, 0, 1, 0, 1, 1, 0, 0}, null, new double[]{1, 2, 3, 1}),
+                lazy.getCoordinateSequence(0));
+        assertEquals(wktReader.read(lazy.toString()), lazy.getGeometry());
+
+        lazy = wktReader.readLazy("GEOMETRYCOLLECTION (POINT M (1 2 3), LINESTRING (4 5 6, 7 8 9), MULTIPOINT Z ((1 2 3)), POINT EMPTY)");
+        assertEquals(3, lazy.getNumCoordinateSequences());
+        assertEquals(new LineStringZM(new double[]{1, 2}, null, new double[]{3}), lazy.getCoordinateSequence(0));
+        assertEquals(new LineStringZM(new double[]{4, 5, 7, 8}, new double[]{6, 9}, null), lazy.getCoordinateSequence(1));
+        assertEquals("LINESTRING Z (1 2 3)", wktWriter.write(lazy.getCoordinateSequence(2)));
+        assertEquals("LINESTRING M (1 2 3)", wktWriter.write(lazy.getCoordinateSequence(0)));
+
+        String input = "SRID=4326;POINT Z (1 2 3);POINT (4 5)\nSRID=3794;POINT EMPTY\n";
+        try (WKTStreamReader records = new WKTStreamReader(new StringReader(input), wktReader)) {
+            assertEquals(new EWKTGeometry(4326, new PointZM(1, 2, 3)), records.read());
+            assertEquals(new Point(4, 5), records.read());
+            assertEquals(new EWKTGeometry(3794, new Point()), records.read());
+            assertNull(records.read());
+        }
+    }
+
+    @Test
+    public void shouldRecordMetrics() throws IOException {
+        WKTMetricsRecorder metrics = new WKTMetricsRecorder();
+        WKTReader reader = new WKTReader(metrics);
+        WKTWriter writer = new WKTWriter(WKTWriterConfig.DEFAULT, metrics);
+
+        String polygon = "POLYGON ((35 10, 45 45, 15 40, 10 20, 35 10), (20 30, 35 35, 30 20, 20 30))";
+        String collection = "GEOMETRYCOLLECTION (POINT (4 6), LINESTRING (4 6, 7 10))";
+        assertEquals(polygon, writer.write(reader.read(polygon)));
+        assertEquals(collection, writer.write(reader.read(collection.getBytes(StandardCharsets.US_ASCII), 0, collection.length())));
+        reader.read("POINT (1 2)");
+        for (String invalid : new String[]{"POINT (1 2", "POLYGON ((1 2, 3 4))"}) {
+            try {
+                reader.read(invalid);
+                fail("Parsed invalid input " + invalid);
+            } catch (WKTParseException expected) {
+                // expected
+            }
+        }
+
+        WKTMetricsSnapshot snapshot = metrics.snapshot();
+        WKTMetricsSnapshot.Operation read = snapshot.getRead();
+        assertEquals(3, read.getCount());
+        assertEquals(1, read.getCount("POLYGON"));
+        assertEquals(1, read.getCount("GEOMETRYCOLLECTION"));
+        assertEquals(0, read.getCount("LINESTRING"));
+        assertEquals(polygon.length(), read.getCharacters("POLYGON"));
+        assertEquals(9, read.getVertices("POLYGON"));
+        assertEquals(3, read.getVertices("GEOMETRYCOLLECTION"));
+        assertEquals(3, Arrays.stream(read.getLatencyHistogram()).sum());
+        assertEquals(Long.valueOf(2), read.getErrors().get(WKTParseException.class.getName()));
+
+        WKTMetricsSnapshot.Operation write = snapshot.getWrite();
+        assertEquals(2, write.getCount());
+        assertEquals(polygon.length() + collection.length(), write.getCharacters());
+        assertEquals(12, write.getVertices());
+        assertTrue(snapshot.toString().contains("wkt_write_geometries_total{type=\"POLYGON\"} 1\n"));
+        assertTrue(snapshot.toString().contains("wkt_read_seconds_count 3\n"));
+
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().getRead().getCount());
+
+        CachingWKTReader cache = new CachingWKTReader(10, 1 << 20, metrics);
+        cache.read(polygon);
+        cache.read(polygon);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            new ParallelWKTReader(pool, 1, metrics).read(collection);
+        } finally {
+            pool.shutdown();
+        }
+        read = metrics.snapshot().getRead();
+        assertEquals(3, read.getCount());
+        assertEquals(18, read.getVertices("POLYGON"));
+        assertEquals(3, read.getVertices("GEOMETRYCOLLECTION"));
+    }
+
+    @Test
+    public void shouldDecodeAndEncodeColumns() throws IOException {
+        List<String> records = Arrays.asList(
+                "POINT (30 10)",
+                "POINT EMPTY",
+                "LINESTRING (30 10, 10 30, 40 40)",
+                "POLYGON ((35 10, 45 45, 15 40, 10 20, 35 10), (20 30, 35 35, 30 20, 20 30), LINESTRING EMPTY)",
+                "POLYGON EMPTY",
+                "MULTIPOINT ((10 40), POINT EMPTY, (40 30))",
+                "MULTILINESTRING ((10 10, 20 20, 10 40), LINESTRING EMPTY)",
+                "MULTIPOLYGON (((30 20, 45 40, 10 40, 30 20)), (POLYGON EMPTY), ((15 5, 40 10, 10 20, 15 5)))",
+                "MULTIPOLYGON EMPTY");
+        WKTColumnarDecoder decoder = new WKTColumnarDecoder();
+        for (String record : records) {
+            decoder.add(record);
+        }
+        for (String invalid : new String[]{"GEOMETRYCOLLECTION (POINT (1 2))", "POINT Z (1 2 3)", "LINESTRING (1 2 3, 4 5 6)",
+                "SRID=4326;POINT (1 2)", "MULTIPOLYGON (((1 2, 3 4, 1 2)), ((1 2"}) {
+            try {
+                decoder.add(invalid);
+                fail("Decoded invalid input " + invalid);
+            } catch (IOException expected) {
+                // expected
+            }
+        }
+        byte[] bytes = "MULTIPOINT (1 2, 3 4)".getBytes(StandardCharsets.US_ASCII);
+        decoder.add(bytes, 0, bytes.length);
+
+        for (boolean offHeap : new boolean[]{false, true}) {
+            WKTColumnarBatch batch = decoder.build(offHeap);
+            assertEquals(offHeap, batch.isOffHeap());
+            assertEquals(records.size() + 1, batch.size());
+            assertEquals("MULTIPOINT", batch.getGeometryType(records.size()));
+            for (int i = 0; i < records.size(); i++) {
+                StringBuilder encoded = new StringBuilder();
+                wktWriter.write(batch, i, encoded);
+                assertEquals(records.get(i), encoded.toString());
+                assertEquals(wktWriter.write(wktReader.read(records.get(i))), encoded.toString());
+            }
+
+            // the outer ring of the first polygon
+            int ring = batch.getPartOffsets()[batch.getGeometryOffsets()[3]];
+            assertEquals(5, batch.getRingOffsets()[ring + 1] - batch.getRingOffsets()[ring]);
+            assertEquals(35, batch.getX(batch.getRingOffsets()[ring]), 0);
+            assertEquals(10, batch.getCoordinates().get(2 * batch.getRingOffsets()[ring] + 1), 0);
+            assertEquals(13, batch.getNumParts());
+            assertEquals(12, batch.getNumRings());
+            assertEquals(28, batch.getNumVertices());
+        }
+
+        WKTWriter compact = new WKTWriter(WKTWriterConfig.builder().compact(true).decimalPlaces(1).build());
+        StringBuilder all = new StringBuilder();
+        compact.writeAll(WKTColumnarDecoder.decode(records.subList(2, 4)), all, "\n");
+        assertEquals("LINESTRING(30.0 10.0,10.0 30.0,40.0 40.0)\n"
+                + compact.write(wktReader.read(records.get(3))), all.toString());
+    }
+
+    private static class Parcel extends Polygon {
+        Parcel(LineString outer) {
+            super(outer, null);
+        }
+    }
+
+    private static class Envelope implements Geometry {
+        final double minX, minY, maxX, maxY;
+
+        Envelope(double minX, double minY, double maxX, double maxY) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+    }
+
+    @Test
+    public void shouldWriteSubclassesAndRegisteredTypes() throws IOException {
+        Parcel parcel = new Parcel(new LineString(new double[]{0, 0, 1, 0, 1, 1, 0, 0}));
+        assertEquals("POLYGON ((0 0, 1 0, 1 1, 0 0))", wktWriter.write(parcel));
+
+        WKTWriter writer = new WKTWriter();
+        writer.register(Envelope.class, "POLYGON", (geom, w, out) -> {
+            out.append("((");
+            double[] coords = {geom.minX, geom.minY, geom.maxX, geom.minY, geom.maxX, geom.maxY, geom.minX, geom.maxY, geom.minX, geom.minY};
+            for (int i = 0; i < coords.length; i += 2) {
+                if (i > 0) {
+                    out.append(", ");
+                }
+                w.writeNumber(coords[i], out);
+                out.append(' ');
+                w.writeNumber(coords[i + 1], out);
+            }
+            out.append("))");
+        });
+        Geometry collection = new GeometryCollection<>(new Geometry[]{new Envelope(0, 0, 2, 1.5), new Point(1, 1)});
+        assertEquals("GEOMETRYCOLLECTION (POLYGON ((0 0, 2 0, 2 1.5, 0 1.5, 0 0)), POINT (1 1))", writer.write(collection));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectUnregisteredType() throws IOException {
+        wktWriter.write(new Envelope(0, 0, 1, 1));
+    }
+
+    @Test
+    public void shouldWriteWithConfiguredPrecisionAndLayout() throws IOException {
+        LineString lineString = new LineString(new double[]{30.1234567, 10, -0.0000004, 2.5});
+        GeometryCollection<Geometry> collection = new GeometryCollection<>(new Geometry[]{new Point(1.25, 2), lineString, new Point()});
+
+        WKTWriter fixed = new WKTWriter(WKTWriterConfig.builder().decimalPlaces(6).build());
+        assertEquals("LINESTRING (30.123457 10.000000, 0.000000 2.500000)", fixed.write(lineString));
+
+        WKTWriter compact = new WKTWriter(WKTWriterConfig.builder().decimalPlaces(2).compact(true).trimTrailingZeros(true).build());
+        assertEquals("GEOMETRYCOLLECTION(POINT(1.25 2),LINESTRING(30.12 10,0 2.5),POINT EMPTY)", compact.write(collection));
+
+        WKTWriter compactFullPrecision = new WKTWriter(WKTWriterConfig.builder().compact(true).build());
+        String written = compactFullPrecision.write(collection);
+        assertEquals("GEOMETRYCOLLECTION(POINT(1.25 2),LINESTRING(30.1234567 10,-0.0000004 2.5),POINT EMPTY)", written);
+        assertEquals(collection, wktReader.read(written));
+    }
+
+    @Test
+    public void shouldLocateParseErrors() throws IOException {
+        assertEquals(new Point(1, 2), wktReader.read("POINT(1 2)"));
+        assertEquals(wktReader.read("MULTIPOINT ((1 2), (3 4))"), wktReader.read("MULTIPOINT((1 2),(3 4))"));
+        assertEquals(wktReader.read("POINT Z (1 2 3)"), wktReader.read("POINT Z(1 2 3)"));
+
+        assertParseError("LINESTRING (1 2,\n  3 x)", 21, 2, 5);
+        assertParseError("POINT (1 2", 10, 1, 11);
+        assertParseError("  PIONT (1 2)", 2, 1, 3);
+        assertParseError("POLYGON ((1 2, 3 4, 5 6))", 8, 1, 9);
+        assertParseError("MULTIPOINT ((1 2), LINESTRING EMPTY)", 19, 1, 20);
+
+        try {
+            wktReader.readLazy("POLYGON ((1 2, 3 4)").getNumCoordinates();
+            fail("Scanned unbalanced brackets");
+        } catch (WKTParseException expected) {
+            assertEquals(19, expected.getOffset());
+        }
+        try {
+            WKTPushParser parser = new WKTPushParser(new WKTEventHandler() {
+            });
+            parser.feed("POINT (1 2)\nPOINT (1 x)");
+            parser.finish();
+            fail("Pushed invalid input");
+        } catch (WKTParseException expected) {
+            assertEquals(2, expected.getLine());
+        }
+    }
+
+    private void assertParseError(String wkt, long offset, int line, int column) throws IOException {
+        try {
+            wktReader.read(wkt);
+            fail("Parsed invalid input " + wkt);
+        } catch (WKTParseException expected) {
+            assertEquals(wkt, offset, expected.getOffset());
+            assertEquals(wkt, line, expected.getLine());
+            assertEquals(wkt, column, expected.getColumn());
+            assertTrue(expected.getMessage(), expected.getMessage().endsWith(" at line " + line + ", column " + column));
+        }
+    }
+
+    @Test
+    public void shouldSkipInvalidRecords() throws IOException {
+        String input = "POINT (1 2)\nPOINT (1 x)\nLINESTRING (1 2, 3 4)\nPOLYGON ((1 2, 3 4))\nPOINT (5 6)\n";
+        List<Geometry> read = new ArrayList<>();
+        try (WKTStreamReader records = new WKTStreamReader(new StringReader(input), wktReader, true)) {
+            for (Geometry geometry = records.read(); geometry != null; geometry = records.read()) {
+                read.add(geometry);
+            }
+            assertEquals(2, records.getSkippedRecords());
+        }
+        assertEquals(Arrays.asList(new Point(1, 2), new LineString(new double[]{1, 2, 3, 4}), new Point(5, 6)), read);
+
+        Path file = Files.createTempFile("bulk", ".wkt");
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Files.write(file, input.getBytes(StandardCharsets.US_ASCII));
+            WKTBulkLoader lenient = new WKTBulkLoader(wktReader, pool, 16, true);
+            assertEquals(read, lenient.load(file));
+            assertEquals(2, lenient.getSkippedRecords());
+            try {
+                new WKTBulkLoader(wktReader, pool, 16).load(file);
+                fail("Loaded invalid records");
+            } catch (WKTParseException expected) {
+                assertEquals(21, expected.getOffset());
+                assertEquals(2, expected.getLine());
+                assertEquals(10, expected.getColumn());
+            }
+        } finally {
+            pool.shutdown();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void shouldSimplifyWhileWriting() throws IOException {
+        WKTWriter deduplicating = new WKTWriter(WKTWriterConfig.builder().decimalPlaces(0).removeDuplicates(true).build());
+        assertEquals("LINESTRING (0 0, 1 1, 2 2)", deduplicating.write(new LineString(new double[]{0, 0, 0.2, 0.1, 1, 1, 1.3, 1.1, 2, 2})));
+        assertEquals("LINESTRING (0 0, 1 1)", deduplicating.write(new LineString(new double[]{0, 0, 1, 1, 1.2, 1.1})));
+        assertEquals("LINESTRING (0 0, 0 0)", deduplicating.write(new LineString(new double[]{0, 0, 0.1, 0, 0.2, 0})));
+
+        WKTWriter simplifying = new WKTWriter(WKTWriterConfig.builder().simplifyTolerance(0.5).build());
+        assertEquals("LINESTRING (0 0, 3 0, 3 3)", simplifying.write(wktReader.read("LINESTRING (0 0, 1 0.1, 2 -0.1, 3 0, 3 3)")));
+        String polygon = "POLYGON ((0 0, 10 0, 10 0.1, 10 10, 0 10, 0 0), (4 4, 4 4.2, 4 6, 6 6, 4 4))";
+        String simplified = "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (4 4, 4 6, 6 6, 4 4))";
+        assertEquals(simplified, simplifying.write(wktReader.read(polygon)));
+        assertEquals("MULTIPOLYGON (" + simplified.substring("POLYGON ".length()) + ")",
+                simplifying.write(wktReader.read("MULTIPOLYGON (" + polygon.substring("POLYGON ".length()) + ")")));
+        StringBuilder columnar = new StringBuilder();
+        simplifying.write(WKTColumnarDecoder.decode(Collections.singletonList(polygon)), 0, columnar);
+        assertEquals(simplified, columnar.toString());
+
+        WKTWriter coarse = new WKTWriter(WKTWriterConfig.builder().decimalPlaces(0).removeDuplicates(true).simplifyTolerance(5).build());
+        String triangle = "POLYGON ((0 0, 1 0, 1 1, 0 0))";
+        assertEquals(triangle, coarse.write(wktReader.read(triangle)));
+        String written = coarse.write(wktReader.read("POLYGON ((0 0, 20 0, 20 0.4, 20 20, 0 0), (1 1, 1.2 1, 1.2 1.2, 1 1))"));
+        assertEquals("POLYGON ((0 0, 20 0, 20 20, 0 0), (1 1, 1 1, 1 1, 1 1))", written);
+        wktReader.read(written);
+        assertEquals("LINESTRING Z (0 0 1, 9 0 3)", coarse.write(wktReader.read("LINESTRING Z (0 0 1, 4 1 2, 9 0 3)")));
+    }
+
+    @Test
+    public void shouldStreamCompressed() throws IOException {
+        List<Geometry> geometries = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            geometries.add(i % 2 == 0 ? new Point(i, i * 0.25) : new LineString(new double[]{i, 0.125, i + 1, -i, i / 3.0, 7}));
+        }
+        StringBuilder written = new StringBuilder();
+        wktWriter.writeAll(geometries, written, "\n");
+
+        for (WKTCodec codec : new WKTCodec[]{WKTCodec.GZIP, WKTCodec.DEFLATE, WKTCodec.NONE}) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (WKTStreamWriter records = new WKTStreamWriter(compressed, codec, wktWriter)) {
+                for (Geometry geometry : geometries) {
+                    records.write(geometry);
+                }
+                assertEquals(geometries.size(), records.getRecordNumber());
+            }
+            byte[] bytes = compressed.toByteArray();
+            ByteArrayOutputStream text = new ByteArrayOutputStream();
+            try (InputStream in = codec.decompress(new ByteArrayInputStream(bytes))) {
+                byte[] buffer = new byte[4096];
+                for (int n; (n = in.read(buffer)) > 0; ) {
+                    text.write(buffer, 0, n);
+                }
+            }
+            assertEquals(written.toString(), new String(text.toByteArray(), StandardCharsets.US_ASCII));
+
+            List<Geometry> read = new ArrayList<>();
+            try (WKTStreamReader records = WKTStreamReader.open(new ByteArrayInputStream(bytes), codec, wktReader, false)) {
+                for (Geometry geometry = records.read(); geometry != null; geometry = records.read()) {
+                    read.add(geometry);
+                }
+            }
+            assertEquals(geometries, read);
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        WKTStreamWriter writer = new WKTStreamWriter(compressed, WKTCodec.GZIP);
+        for (Geometry geometry : geometries) {
+            writer.write(geometry);
+        }
+        writer.close();
+        byte[] truncated = Arrays.copyOf(compressed.toByteArray(), compressed.size() / 2);
+        int read = 0;
+        try (WKTStreamReader records = WKTStreamReader.open(new ByteArrayInputStream(truncated), WKTCodec.GZIP, wktReader, true)) {
+            while (records.read() != null) {
+                read++;
+            }
+            fail("Read truncated input");
+        } catch (IOException expected) {
+            assertTrue(read > 0 && read < geometries.size());
+        }
+        try {
+            writer.write(new Point(1, 2));
+            fail("Wrote to a closed writer");
+        } catch (IOException expected) {
+            // expected
+        }
+
+        // a geometry that cannot be formatted leaves nothing in the stream
+        ByteArrayOutputStream skipped = new ByteArrayOutputStream();
+        try (WKTStreamWriter records = new WKTStreamWriter(skipped, WKTCodec.NONE, wktWriter)) {
+            records.write(new Point(1, 2));
+            try {
+                records.write(new LineString(new double[]{3, 4, 5, Double.NaN}));
+                fail("Wrote non-finite ordinate");
+            } catch (IOException expected) {
+                // expected
+            }
+            records.write(new Point(6, 7));
+            assertEquals(2, records.getRecordNumber());
+        }
+        assertEquals("POINT (1 2)\nPOINT (6 7)", new String(skipped.toByteArray(), StandardCharsets.US_ASCII));
+
+        // closing before the end stops the decompressing thread, which closes the input itself
+        String[] closedBy = new String[1];
+        InputStream input = new ByteArrayInputStream(compressed.toByteArray()) {
+            @Override
+            public void close() {
+                closedBy[0] = Thread.currentThread().getName();
+            }
+        };
+        try (WKTStreamReader records = WKTStreamReader.open(input, WKTCodec.GZIP, wktReader, false)) {
+            assertEquals(geometries.get(0), records.read());
+        }
+        assertEquals("wkt-decompress", closedBy[0]);
+    }
 }
@@ -0,0 +1,46 @@
+package company;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread reusable scratch object. A thread gets its own instance from {@link #acquire()} and must hand
+ * it back with {@link #release(Object)}.
+ * <p>
+ * Acquiring is reentrant-safe: while the thread's instance is in use (a nested call, or a fork-join task
+ * run by a joining worker) a fresh instance is created instead of sharing the busy one.
+ */
+final class ThreadLocalScratch<T> {
+
+    private static final class Slot<T> {
+        final T value;
+        boolean inUse;
+
+        Slot(T value) {
+            this.value = value;
+        }
+    }
+
+    private final Supplier<T> factory;
+    private final ThreadLocal<Slot<T>> slots;
+
+    ThreadLocalScratch(Supplier<T> factory) {
+        this.factory = factory;
+        this.slots = ThreadLocal.withInitial(() -> new Slot<>(factory.get()));
+    }
+
+    T acquire() {
+        Slot<T> slot = slots.get();
+        if (slot.inUse) {
+            return factory.get();
+        }
+        slot.inUse = true;
+        return slot.value;
+    }
+
+    void release(T value) {
+        Slot<T> slot = slots.get();
+        if (slot.value == value) {
+            slot.inUse = false;
+        }
+    }
+}
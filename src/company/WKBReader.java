@@ -0,0 +1,170 @@
+package company;
+
+import com.sinergise.geometry.*;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transforms OGC Well-Known Binary into Geometry objects. Both byte orders are accepted, also mixed
+ * within one geometry. Ordinates are transferred in bulk through {@link ByteBuffer#asDoubleBuffer()}
+ * straight into the array the {@link LineString} holds.
+ */
+public class WKBReader {
+
+    private static final int COORDINATE_SIZE = 2 * 8;
+    private static final int MIN_GEOMETRY_SIZE = 1 + 4 + 4;
+
+    public Geometry read(byte[] wkb) throws IOException {
+        return read(ByteBuffer.wrap(wkb));
+    }
+
+    /**
+     * Reads one geometry starting at the position of the buffer and advances the position past it. The byte
+     * order of the buffer is left unchanged.
+     */
+    public Geometry read(ByteBuffer wkb) throws IOException {
+        ByteOrder previousOrder = wkb.order();
+        try {
+            return readGeometry(wkb);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Unexpected end of WKB", e);
+        } finally {
+            wkb.order(previousOrder);
+        }
+    }
+
+    private Geometry readGeometry(ByteBuffer in) throws IOException {
+        int type = readHeader(in);
+        switch (type) {
+            case WKBWriter.POINT:
+                return readPoint(in);
+            case WKBWriter.LINESTRING:
+                return readLineString(in);
+            case WKBWriter.POLYGON:
+                return readPolygon(in);
+            case WKBWriter.MULTIPOINT: {
+                Point[] points = new Point[readCount(in)];
+                for (int i = 0; i < points.length; i++) {
+                    points[i] = (Point) readMember(in, WKBWriter.POINT);
+                }
+                return points.length == 0 ? new MultiPoint() : new MultiPoint(points);
+            }
+            case WKBWriter.MULTILINESTRING: {
+                LineString[] lineStrings = new LineString[readCount(in)];
+                for (int i = 0; i < lineStrings.length; i++) {
+                    lineStrings[i] = (LineString) readMember(in, WKBWriter.LINESTRING);
+                }
+                return lineStrings.length == 0 ? new MultiLineString() : new MultiLineString(lineStrings);
+            }
+            case WKBWriter.MULTIPOLYGON: {
+                Polygon[] polygons = new Polygon[readCount(in)];
+                for (int i = 0; i < polygons.length; i++) {
+                    polygons[i] = (Polygon) readMember(in, WKBWriter.POLYGON);
+                }
+                return polygons.length == 0 ? new MultiPolygon() : new MultiPolygon(polygons);
+            }
+            case WKBWriter.GEOMETRYCOLLECTION: {
+                int count = readCount(in);
+                if (count == 0) {
+                    return new GeometryCollection<>();
+                }
+                List<Geometry> elements = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    elements.add(readGeometry(in));
+                }
+                return new GeometryCollection<>(elements);
+            }
+            default:
+                throw new IOException("Unsupported WKB geometry type " + type);
+        }
+    }
+
+    private Geometry readMember(ByteBuffer in, int expectedType) throws IOException {
+        int type = readHeader(in);
+        if (type != expectedType) {
+            throw new IOException("Expected WKB geometry type " + expectedType + " but found " + type);
+        }
+        switch (type) {
+            case WKBWriter.POINT:
+                return readPoint(in);
+            case WKBWriter.LINESTRING:
+                return readLineString(in);
+            default:
+                return readPolygon(in);
+        }
+    }
+
+    /**
+     * Reads the byte order mark, switches the buffer to it and returns the geometry type.
+     */
+    private int readHeader(ByteBuffer in) throws IOException {
+        byte byteOrder = in.get();
+        if (byteOrder == WKBWriter.BIG_ENDIAN) {
+            in.order(ByteOrder.BIG_ENDIAN);
+        } else if (byteOrder == WKBWriter.LITTLE_ENDIAN) {
+            in.order(ByteOrder.LITTLE_ENDIAN);
+        } else {
+            throw new IOException("Invalid WKB byte order " + byteOrder);
+        }
+        return in.getInt();
+    }
+
+    private Point readPoint(ByteBuffer in) {
+        double x = in.getDouble();
+        double y = in.getDouble();
+        if (Double.isNaN(x) && Double.isNaN(y)) {
+            return new Point();
+        }
+        return new Point(x, y);
+    }
+
+    private LineString readLineString(ByteBuffer in) throws IOException {
+        int numCoords = in.getInt();
+        if (numCoords < 0 || numCoords > in.remaining() / COORDINATE_SIZE) {
+            throw new IOException("Invalid WKB point count " + numCoords);
+        }
+        if (numCoords == 0) {
+            return new LineString();
+        }
+        double[] coords = new double[numCoords * 2];
+        in.asDoubleBuffer().get(coords);
+        in.position(in.position() + numCoords * COORDINATE_SIZE);
+        return new LineString(coords);
+    }
+
+    private Polygon readPolygon(ByteBuffer in) throws IOException {
+        int numRings = in.getInt();
+        if (numRings < 0 || numRings > in.remaining() / 4) {
+            throw new IOException("Invalid WKB ring count " + numRings);
+        }
+        if (numRings == 0) {
+            return new Polygon();
+        }
+        LineString outer = readLineString(in);
+        LineString[] holes = new LineString[numRings - 1];
+        for (int i = 0; i < holes.length; i++) {
+            holes[i] = readLineString(in);
+        }
+        try {
+            return new Polygon(outer, holes);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads an element count, rejecting counts that cannot fit into the remaining bytes.
+     */
+    private int readCount(ByteBuffer in) throws IOException {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / MIN_GEOMETRY_SIZE) {
+            throw new IOException("Invalid WKB element count " + count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,175 @@
+package company;
+
+import com.sinergise.geometry.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * Transforms Geometry objects into OGC Well-Known Binary. e.g.
+ * <pre><code>
+ * new WKBWriter(ByteOrder.LITTLE_ENDIAN).write(new Point(1, 2));
+ * //returns 0101000000000000000000F03F0000000000000040
+ * </code></pre>
+ * Empty points are written with NaN ordinates, empty polygons with zero rings. Only x and y are written:
+ * geometries with z or m ordinates ({@link GeometryZM}), also as polygon rings, and SRID prefixed ones are
+ * rejected rather than written without them.
+ */
+public class WKBWriter {
+
+    static final byte BIG_ENDIAN = 0;
+    static final byte LITTLE_ENDIAN = 1;
+
+    static final int POINT = 1;
+    static final int LINESTRING = 2;
+    static final int POLYGON = 3;
+    static final int MULTIPOINT = 4;
+    static final int MULTILINESTRING = 5;
+    static final int MULTIPOLYGON = 6;
+    static final int GEOMETRYCOLLECTION = 7;
+
+    private static final int HEADER_SIZE = 1 + 4;
+    private static final int COUNT_SIZE = 4;
+    private static final int COORDINATE_SIZE = 2 * 8;
+
+    private final ByteOrder byteOrder;
+
+    /**
+     * Creates a writer producing big endian (XDR) output.
+     */
+    public WKBWriter() {
+        this(ByteOrder.BIG_ENDIAN);
+    }
+
+    public WKBWriter(ByteOrder byteOrder) {
+        this.byteOrder = byteOrder;
+    }
+
+    public byte[] write(Geometry geom) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(size(geom));
+        write(geom, out);
+        return out.array();
+    }
+
+    /**
+     * Writes the geometry at the position of the buffer, which must have at least {@link #size(Geometry)}
+     * bytes remaining. The byte order of the buffer is left unchanged.
+     */
+    public void write(Geometry geom, ByteBuffer out) throws IOException {
+        ByteOrder previousOrder = out.order();
+        out.order(byteOrder);
+        try {
+            writeGeometry(geom, out);
+        } finally {
+            out.order(previousOrder);
+        }
+    }
+
+    /**
+     * Returns the number of bytes needed for the WKB representation of the geometry.
+     */
+    public int size(Geometry geom) throws IOException {
+        checkPlanar(geom);
+        if (geom instanceof Point) {
+            return HEADER_SIZE + COORDINATE_SIZE;
+        }
+        if (geom instanceof LineString) {
+            return HEADER_SIZE + lineStringSize((LineString) geom);
+        }
+        if (geom instanceof Polygon) {
+            return HEADER_SIZE + polygonSize((Polygon) geom);
+        }
+        if (geom instanceof GeometryCollection) {
+            int size = HEADER_SIZE + COUNT_SIZE;
+            for (Geometry element : (GeometryCollection<?>) geom) {
+                size += size(element);
+            }
+            return size;
+        }
+        throw new IOException("Unsupported geometry type " + geom.getClass().getName());
+    }
+
+    private void writeGeometry(Geometry geom, ByteBuffer out) throws IOException {
+        checkPlanar(geom);
+        if (geom instanceof MultiPolygon) {
+            writeCollection((MultiPolygon) geom, MULTIPOLYGON, out);
+        } else if (geom instanceof MultiPoint) {
+            writeCollection((MultiPoint) geom, MULTIPOINT, out);
+        } else if (geom instanceof MultiLineString) {
+            writeCollection((MultiLineString) geom, MULTILINESTRING, out);
+        } else if (geom instanceof GeometryCollection) {
+            writeCollection((GeometryCollection<?>) geom, GEOMETRYCOLLECTION, out);
+        } else if (geom instanceof LineString) {
+            writeHeader(LINESTRING, out);
+            writeCoordinates((LineString) geom, out);
+        } else if (geom instanceof Point) {
+            writeHeader(POINT, out);
+            Point point = (Point) geom;
+            out.putDouble(point.getX()).putDouble(point.getY());
+        } else if (geom instanceof Polygon) {
+            writeHeader(POLYGON, out);
+            writePolygon((Polygon) geom, out);
+        } else {
+            throw new IOException("Unsupported geometry type " + geom.getClass().getName());
+        }
+    }
+
+    private void writeCollection(GeometryCollection<?> geom, int type, ByteBuffer out) throws IOException {
+        writeHeader(type, out);
+        out.putInt(geom.size());
+        for (Geometry element : geom) {
+            writeGeometry(element, out);
+        }
+    }
+
+    private void writePolygon(Polygon geom, ByteBuffer out) throws IOException {
+        if (geom.isEmpty()) {
+            out.putInt(0);
+            return;
+        }
+        out.putInt(1 + geom.getNumHoles());
+        writeCoordinates(checkPlanar(geom.getOuter()), out);
+        for (int i = 0; i < geom.getNumHoles(); i++) {
+            writeCoordinates(checkPlanar(geom.getHole(i)), out);
+        }
+    }
+
+    private void writeCoordinates(LineString geom, ByteBuffer out) {
+        int numCoords = geom.getNumCoords();
+        out.putInt(numCoords);
+        DoubleBuffer doubles = out.asDoubleBuffer();
+        for (int i = 0; i < numCoords; i++) {
+            doubles.put(geom.getX(i)).put(geom.getY(i));
+        }
+        out.position(out.position() + numCoords * COORDINATE_SIZE);
+    }
+
+    private void writeHeader(int type, ByteBuffer out) {
+        out.put(byteOrder == ByteOrder.BIG_ENDIAN ? BIG_ENDIAN : LITTLE_ENDIAN);
+        out.putInt(type);
+    }
+
+    private static int lineStringSize(LineString geom) {
+        return COUNT_SIZE + geom.getNumCoords() * COORDINATE_SIZE;
+    }
+
+    private static int polygonSize(Polygon geom) throws IOException {
+        if (geom.isEmpty()) {
+            return COUNT_SIZE;
+        }
+        int size = COUNT_SIZE + lineStringSize(checkPlanar(geom.getOuter()));
+        for (int i = 0; i < geom.getNumHoles(); i++) {
+            size += lineStringSize(checkPlanar(geom.getHole(i)));
+        }
+        return size;
+    }
+
+    private static <T extends Geometry> T checkPlanar(T geom) throws IOException {
+        if (geom instanceof GeometryZM) {
+            throw new IOException("Unsupported geometry type " + geom.getClass().getName() + ", z and m cannot be written");
+        }
+        return geom;
+    }
+}
@@ -0,0 +1,262 @@
+package company;
+
+import com.sinergise.geometry.Geometry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Parses large files of newline or semicolon separated WKT records on all cores.
+ * <p>
+ * The file is memory-mapped and cut into chunks of roughly {@code chunkSize} bytes whose edges are moved
+ * forward to the next newline, so no record is split between chunks. Each chunk is mapped and parsed on
+ * its own fork-join task directly from the mapped bytes (WKT is treated as ASCII), without decoding it to
+ * Strings.
+ * <pre><code>
+ * List&lt;Geometry&gt; geometries = new WKTBulkLoader().load(Paths.get("parcels.wkt"));
+ * </code></pre>
+ * In skip mode invalid records are counted and dropped, see {@link #getSkippedRecords()}; otherwise the
+ * first one fails the load with a {@link WKTParseException} whose offset, line and column are those of the
+ * error in the file, and the chunks not parsed yet are cancelled.
+ */
+public class WKTBulkLoader {
+
+    private static final int DEFAULT_CHUNK_SIZE = 16 << 20;
+    private static final int SCAN_BUFFER_SIZE = 4096;
+    private static final byte NEW_LINE = '\n';
+
+    private final WKTReader reader;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final boolean skipInvalid;
+    private final LongAdder skippedRecords = new LongAdder();
+
+    public WKTBulkLoader() {
+        this(new WKTReader(), ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param reader    reader used by all worker threads
+     * @param pool      pool the chunks are parsed on
+     * @param chunkSize nominal number of bytes parsed by one task
+     */
+    public WKTBulkLoader(WKTReader reader, ForkJoinPool pool, int chunkSize) {
+        this(reader, pool, chunkSize, false);
+    }
+
+    /**
+     * @param skipInvalid whether records that fail to parse are skipped rather than failing the load
+     */
+    public WKTBulkLoader(WKTReader reader, ForkJoinPool pool, int chunkSize, boolean skipInvalid) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.reader = reader;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.skipInvalid = skipInvalid;
+    }
+
+    /**
+     * Returns the number of invalid records skipped by all loads of this loader so far.
+     */
+    public long getSkippedRecords() {
+        return skippedRecords.sum();
+    }
+
+    /**
+     * Parses all records of the file and returns them in input order.
+     */
+    public List<Geometry> load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            List<Future<List<Geometry>>> chunks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i < bounds.length - 1; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                chunks.add(pool.submit(() -> {
+                    List<Geometry> geometries = new ArrayList<>();
+                    parseChunk(channel, start, end, geometries::add);
+                    return geometries;
+                }));
+            }
+            List<Geometry> result = new ArrayList<>();
+            try {
+                for (Future<List<Geometry>> chunk : chunks) {
+                    result.addAll(await(chunk));
+                }
+            } finally {
+                cancel(chunks);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Parses all records of the file and passes each geometry to the callback. The callback is invoked
+     * concurrently from the pool threads and in no particular order, so it must be thread-safe.
+     */
+    public void load(Path file, Consumer<? super Geometry> callback) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            List<Future<Void>> chunks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i < bounds.length - 1; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                chunks.add(pool.submit(() -> {
+                    parseChunk(channel, start, end, callback);
+                    return null;
+                }));
+            }
+            try {
+                for (Future<Void> chunk : chunks) {
+                    await(chunk);
+                }
+            } finally {
+                cancel(chunks);
+            }
+        }
+    }
+
+    /**
+     * Cancels the chunks that have not started yet, after the first failure; a no-op once all are done.
+     */
+    private static void cancel(List<? extends Future<?>> chunks) {
+        for (Future<?> chunk : chunks) {
+            chunk.cancel(false);
+        }
+    }
+
+    private void parseChunk(FileChannel channel, long start, long end, Consumer<? super Geometry> callback) throws IOException {
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        AsciiCharSequence chars = new AsciiCharSequence(mapped, 0, (int) (end - start));
+        int recordStart = 0;
+        for (int i = 0; i <= chars.length(); i++) {
+            if (i == chars.length() || (WKTStreamReader.isSeparator(chars.charAt(i))
+                    && WKTStreamReader.endsRecord(chars, recordStart, i))) {
+                if (!WKTStreamReader.isBlank(chars, recordStart, i)) {
+                    Geometry geometry;
+                    try {
+                        geometry = reader.readRecord(chars, recordStart, i);
+                    } catch (WKTParseException e) {
+                        if (skipInvalid) {
+                            skippedRecords.increment();
+                            recordStart = i + 1;
+                            continue;
+                        }
+                        throw locateInFile(channel, start + recordStart, e);
+                    }
+                    callback.accept(geometry);
+                }
+                recordStart = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Rethrows the error of the record starting at the given byte of the file with the offset, line and
+     * column of the error in the file, counting the lines before it. This reads the file up to the error,
+     * which is done once per load at most.
+     */
+    private static WKTParseException locateInFile(FileChannel channel, long recordStart, WKTParseException e) throws IOException {
+        long offset = recordStart + e.getOffset();
+        long line = 1;
+        long lineStart = 0;
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = 0;
+        while (position < offset) {
+            scan.clear();
+            scan.limit((int) Math.min(SCAN_BUFFER_SIZE, offset - position));
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == NEW_LINE) {
+                    line++;
+                    lineStart = position + i + 1;
+                }
+            }
+            position += read;
+        }
+        int fileLine = (int) Math.min(line, Integer.MAX_VALUE);
+        int column = (int) Math.min(offset - lineStart + 1, Integer.MAX_VALUE);
+        return new WKTParseException("Invalid record at byte " + recordStart + ", error at line " + fileLine + ", column "
+                + column + " of the file: " + e.getMessage(), offset, fileLine, column, e);
+    }
+
+    /**
+     * Returns the chunk edges: 0, the first newline after each nominal chunk end, and the file size.
+     */
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = 0;
+        while (position < size) {
+            long next = position + chunkSize < size ? nextLineStart(channel, position + chunkSize, scan) : size;
+            if (next - position > Integer.MAX_VALUE) {
+                throw new IOException("Record starting near byte " + position + " is too large to be mapped");
+            }
+            bounds.add(next);
+            position = next;
+        }
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, ByteBuffer scan) throws IOException {
+        long position = from;
+        while (true) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == NEW_LINE) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Waits for the task and rethrows its failure. Fork-join pools wrap checked exceptions of callables in
+     * RuntimeExceptions, so the first IOException in the cause chain is the one rethrown.
+     */
+    static <T> T await(Future<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a parse task", e);
+        } catch (ExecutionException e) {
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
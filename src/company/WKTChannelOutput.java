@@ -0,0 +1,99 @@
+package company;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Appendable that encodes WKT as ASCII into a fixed byte buffer and writes the buffer to a channel each
+ * time it fills, so that memory use is bounded by the buffer size however large the output. e.g.
+ * <pre><code>
+ * try (FileChannel channel = FileChannel.open(path, WRITE, CREATE)) {
+ *     WKTChannelOutput out = new WKTChannelOutput(channel);
+ *     writer.writeAll(geometries, out, "\n");
+ *     out.flush();
+ * }
+ * </code></pre>
+ * Text still in the buffer is only written by {@link #flush()}. The channel is expected to be blocking;
+ * the channel is not closed by this class. Instances are not thread-safe.
+ */
+public final class WKTChannelOutput implements Appendable, Flushable {
+
+    static final int DEFAULT_SEGMENT_SIZE = 64 << 10;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer segment;
+
+    /**
+     * Output through a new direct buffer of 64 KB.
+     */
+    public WKTChannelOutput(WritableByteChannel channel) {
+        this(channel, ByteBuffer.allocateDirect(DEFAULT_SEGMENT_SIZE));
+    }
+
+    /**
+     * Output through the given buffer, which is cleared first and can be reused once the output has been
+     * flushed.
+     */
+    public WKTChannelOutput(WritableByteChannel channel, ByteBuffer segment) {
+        if (segment.capacity() == 0) {
+            throw new IllegalArgumentException("Segment must not be empty");
+        }
+        this.channel = channel;
+        this.segment = segment;
+        segment.clear();
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        int pos = start;
+        while (pos < end) {
+            if (!segment.hasRemaining()) {
+                writeSegment();
+            }
+            int chunkEnd = Math.min(end, pos + segment.remaining());
+            for (; pos < chunkEnd; pos++) {
+                segment.put(toAscii(csq.charAt(pos)));
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        if (!segment.hasRemaining()) {
+            writeSegment();
+        }
+        segment.put(toAscii(c));
+        return this;
+    }
+
+    /**
+     * Writes the buffered text to the channel.
+     */
+    @Override
+    public void flush() throws IOException {
+        writeSegment();
+    }
+
+    private void writeSegment() throws IOException {
+        segment.flip();
+        while (segment.hasRemaining()) {
+            channel.write(segment);
+        }
+        segment.clear();
+    }
+
+    static byte toAscii(char c) throws IOException {
+        if (c > 0x7F) {
+            throw new IOException("Character '" + c + "' cannot be written as ASCII");
+        }
+        return (byte) c;
+    }
+}
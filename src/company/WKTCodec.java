@@ -0,0 +1,78 @@
+package company;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression of the byte streams read by {@link WKTStreamReader#open(InputStream, WKTCodec, WKTReader, boolean)}
+ * and written by {@link WKTStreamWriter}. Other formats, e.g. zstd from a third party library, plug in by
+ * implementing both methods:
+ * <pre><code>
+ * WKTCodec zstd = new WKTCodec() {
+ *     public InputStream decompress(InputStream in) throws IOException {
+ *         return new ZstdInputStream(in);
+ *     }
+ *
+ *     public OutputStream compress(OutputStream out) throws IOException {
+ *         return new ZstdOutputStream(out);
+ *     }
+ * };
+ * </code></pre>
+ * Closing a returned stream must close the wrapped one. Both are used by a single thread.
+ */
+public interface WKTCodec {
+
+    /**
+     * Plain, uncompressed text.
+     */
+    WKTCodec NONE = new WKTCodec() {
+        @Override
+        public InputStream decompress(InputStream in) {
+            return in;
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) {
+            return out;
+        }
+    };
+
+    /**
+     * The gzip file format, as written by the gzip tool; concatenated members are read one after another.
+     */
+    WKTCodec GZIP = new WKTCodec() {
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            return new GZIPInputStream(in, ChunkPipe.CODEC_BUFFER_SIZE);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, ChunkPipe.CODEC_BUFFER_SIZE);
+        }
+    };
+
+    /**
+     * The zlib format, i.e. deflate with a small header and checksum.
+     */
+    WKTCodec DEFLATE = new WKTCodec() {
+        @Override
+        public InputStream decompress(InputStream in) {
+            return new InflaterInputStream(in);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) {
+            return new DeflaterOutputStream(out);
+        }
+    };
+
+    InputStream decompress(InputStream in) throws IOException;
+
+    OutputStream compress(OutputStream out) throws IOException;
+}
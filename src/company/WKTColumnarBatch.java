@@ -0,0 +1,132 @@
+package company;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * Many geometries in one columnar layout, as built by {@link WKTColumnarDecoder}: a single array of
+ * interlaced x y ordinates and three offset arrays, like the GeoArrow layout of a multipolygon column.
+ * <ul>
+ * <li>geometry g has the parts geometryOffsets[g] to geometryOffsets[g + 1] (exclusive),</li>
+ * <li>part p has the rings partOffsets[p] to partOffsets[p + 1],</li>
+ * <li>ring r has the vertices ringOffsets[r] to ringOffsets[r + 1], vertex v being at 2v and 2v + 1 of
+ * the coordinates.</li>
+ * </ul>
+ * Every geometry type uses all three levels: a point or a linestring is one part of one ring, a
+ * multipoint has one part with one single vertex ring per point. An empty geometry has no parts, an
+ * empty member of a multi geometry is a part without rings and an empty polygon hole a ring without
+ * vertices. e.g. for each polygon of a batch:
+ * <pre><code>
+ * int[] parts = batch.getGeometryOffsets(), rings = batch.getPartOffsets(), vertices = batch.getRingOffsets();
+ * DoubleBuffer xy = batch.getCoordinates();
+ * for (int g = 0; g &lt; batch.size(); g++) {
+ *     int outer = rings[parts[g]];
+ *     for (int v = vertices[outer]; v &lt; vertices[outer + 1]; v++) {
+ *         ... xy.get(2 * v), xy.get(2 * v + 1)
+ *     }
+ * }
+ * </code></pre>
+ * The offset arrays are returned without copying and must not be modified. Instances are immutable
+ * otherwise and thread-safe.
+ */
+public final class WKTColumnarBatch {
+
+    private final byte[] types;
+    private final int size;
+    private final int[] geometryOffsets;
+    private final int[] partOffsets;
+    private final int[] ringOffsets;
+    private final DoubleBuffer coordinates;
+
+    WKTColumnarBatch(byte[] types, int size, int[] geometryOffsets, int[] partOffsets, int[] ringOffsets,
+                     double[] coordinates, boolean offHeap) {
+        this.types = types;
+        this.size = size;
+        this.geometryOffsets = geometryOffsets;
+        this.partOffsets = partOffsets;
+        this.ringOffsets = ringOffsets;
+        if (offHeap) {
+            DoubleBuffer direct = ByteBuffer.allocateDirect(coordinates.length * Double.BYTES)
+                    .order(ByteOrder.nativeOrder()).asDoubleBuffer();
+            direct.put(coordinates).flip();
+            this.coordinates = direct;
+        } else {
+            this.coordinates = DoubleBuffer.wrap(coordinates);
+        }
+    }
+
+    /**
+     * Number of geometries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * WKT keyword of the i-th geometry, e.g. "MULTIPOLYGON".
+     */
+    public String getGeometryType(int i) {
+        return type(i).getKeyword();
+    }
+
+    WKTGeometryType type(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Geometry " + i + " of " + size);
+        }
+        return WKTGeometryType.values()[types[i]];
+    }
+
+    public int getNumParts() {
+        return partOffsets.length - 1;
+    }
+
+    public int getNumRings() {
+        return ringOffsets.length - 1;
+    }
+
+    public int getNumVertices() {
+        return coordinates.limit() >>> 1;
+    }
+
+    /**
+     * Index of the first part of each geometry, followed by the number of parts.
+     */
+    public int[] getGeometryOffsets() {
+        return geometryOffsets;
+    }
+
+    /**
+     * Index of the first ring of each part, followed by the number of rings.
+     */
+    public int[] getPartOffsets() {
+        return partOffsets;
+    }
+
+    /**
+     * Index of the first vertex of each ring, followed by the number of vertices.
+     */
+    public int[] getRingOffsets() {
+        return ringOffsets;
+    }
+
+    /**
+     * Interlaced x y ordinates of all vertices, in a new view positioned at 0. The buffer is direct if the
+     * batch was built off heap, otherwise it wraps an array.
+     */
+    public DoubleBuffer getCoordinates() {
+        return coordinates.duplicate();
+    }
+
+    public boolean isOffHeap() {
+        return coordinates.isDirect();
+    }
+
+    public double getX(int vertex) {
+        return coordinates.get(vertex << 1);
+    }
+
+    public double getY(int vertex) {
+        return coordinates.get((vertex << 1) + 1);
+    }
+}
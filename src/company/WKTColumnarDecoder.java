@@ -0,0 +1,147 @@
+package company;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Parses WKT records straight into the columns of a {@link WKTColumnarBatch}, without creating any
+ * geometry objects, e.g.
+ * <pre><code>
+ * WKTColumnarDecoder decoder = new WKTColumnarDecoder();
+ * for (String record : records) {
+ *     decoder.add(record);
+ * }
+ * WKTColumnarBatch batch = decoder.build(true);
+ * </code></pre>
+ * Points, linestrings, polygons and their multi geometries are accepted in any form {@link WKTReader}
+ * accepts, except that the layout holds x y only: geometry collections, z and m ordinates and SRID
+ * prefixes are rejected. As with {@link WKTReader#readEnvelope(CharSequence)} rings are not required to be
+ * closed. {@link WKTWriter#write(WKTColumnarBatch, int, Appendable)} writes the records back.
+ * <p>
+ * Instances are not thread-safe; use one decoder per thread and batch.
+ */
+public final class WKTColumnarDecoder {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int numGeometries;
+    private int[] geometryOffsets = new int[INITIAL_CAPACITY];
+    private int[] partOffsets = new int[INITIAL_CAPACITY];
+    private int numParts;
+    private int[] ringOffsets = new int[INITIAL_CAPACITY];
+    private int numRings;
+    private double[] coordinates = new double[INITIAL_CAPACITY];
+    private int numOrdinates;
+
+    /**
+     * Decodes all records into a new batch on the heap.
+     */
+    public static WKTColumnarBatch decode(Iterable<? extends CharSequence> records) throws IOException {
+        WKTColumnarDecoder decoder = new WKTColumnarDecoder();
+        for (CharSequence record : records) {
+            decoder.add(record);
+        }
+        return decoder.build(false);
+    }
+
+    /**
+     * Appends one record. If it is invalid an IOException is thrown and the columns are left as they
+     * were, so that decoding can go on with the next record.
+     */
+    public void add(CharSequence wkt) throws IOException {
+        add(wkt, 0, wkt.length());
+    }
+
+    /**
+     * Appends one ASCII encoded record from the given slice of the array.
+     */
+    public void add(byte[] wkt, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || length > wkt.length - offset) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + wkt.length);
+        }
+        add(new AsciiCharSequence(ByteBuffer.wrap(wkt), offset, length), 0, length);
+    }
+
+    void add(CharSequence input, int start, int end) throws IOException {
+        int parts = numParts;
+        int rings = numRings;
+        int ordinates = numOrdinates;
+        WKTParser parser = WKTParser.SCRATCH.acquire();
+        try {
+            parser.decodeColumns(input, start, end, this);
+        } catch (IOException | RuntimeException e) {
+            numParts = parts;
+            numRings = rings;
+            numOrdinates = ordinates;
+            throw e;
+        } finally {
+            WKTParser.SCRATCH.release(parser);
+        }
+    }
+
+    /**
+     * Number of records added since the decoder was created or cleared.
+     */
+    public int size() {
+        return numGeometries;
+    }
+
+    /**
+     * Copies the columns into a new batch, with the coordinates in a direct buffer if offHeap is set. The
+     * decoder can go on adding records for a later batch, which then contains these too unless the
+     * decoder is {@link #clear() cleared}.
+     */
+    public WKTColumnarBatch build(boolean offHeap) {
+        return new WKTColumnarBatch(Arrays.copyOf(types, numGeometries), numGeometries,
+                Arrays.copyOf(geometryOffsets, numGeometries + 1), Arrays.copyOf(partOffsets, numParts + 1),
+                Arrays.copyOf(ringOffsets, numRings + 1), Arrays.copyOf(coordinates, numOrdinates), offHeap);
+    }
+
+    public void clear() {
+        numGeometries = 0;
+        numParts = 0;
+        numRings = 0;
+        numOrdinates = 0;
+    }
+
+    void addVertex(double x, double y) {
+        if (numOrdinates + 2 > coordinates.length) {
+            coordinates = Arrays.copyOf(coordinates, coordinates.length << 1);
+        }
+        coordinates[numOrdinates] = x;
+        coordinates[numOrdinates + 1] = y;
+        numOrdinates += 2;
+    }
+
+    /**
+     * Ends a ring at the last added vertex.
+     */
+    void endRing() {
+        ringOffsets = append(ringOffsets, numRings++, numOrdinates >>> 1);
+    }
+
+    void endPart() {
+        partOffsets = append(partOffsets, numParts++, numRings);
+    }
+
+    void endGeometry(WKTGeometryType type) {
+        if (numGeometries == types.length) {
+            types = Arrays.copyOf(types, types.length << 1);
+        }
+        types[numGeometries] = (byte) type.ordinal();
+        geometryOffsets = append(geometryOffsets, numGeometries++, numParts);
+    }
+
+    /**
+     * Sets the end offset of element index, i.e. the value at index + 1; index 0 always holds 0.
+     */
+    private static int[] append(int[] offsets, int index, int value) {
+        if (index + 1 == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length << 1);
+        }
+        offsets[index + 1] = value;
+        return offsets;
+    }
+}
@@ -0,0 +1,70 @@
+package company;
+
+/**
+ * Coordinate dimension of a geometry: the ordinates following x and y of each vertex.
+ */
+enum WKTDimension {
+
+    XY(false, false, ""),
+    XYZ(true, false, "Z"),
+    XYM(false, true, "M"),
+    XYZM(true, true, "ZM");
+
+    private final boolean hasZ;
+    private final boolean hasM;
+    private final String tag;
+
+    WKTDimension(boolean hasZ, boolean hasM, String tag) {
+        this.hasZ = hasZ;
+        this.hasM = hasM;
+        this.tag = tag;
+    }
+
+    boolean hasZ() {
+        return hasZ;
+    }
+
+    boolean hasM() {
+        return hasM;
+    }
+
+    /**
+     * Keyword following the geometry type, e.g. ZM in <code>POINT ZM (1 2 3 4)</code>; empty for XY.
+     */
+    String getTag() {
+        return tag;
+    }
+
+    /**
+     * Number of ordinates following x and y.
+     */
+    int extraOrdinates() {
+        return (hasZ ? 1 : 0) + (hasM ? 1 : 0);
+    }
+
+    static WKTDimension of(boolean hasZ, boolean hasM) {
+        return hasZ ? (hasM ? XYZM : XYZ) : (hasM ? XYM : XY);
+    }
+
+    static WKTDimension of(GeometryZM geom) {
+        return of(geom.hasZ(), geom.hasM());
+    }
+
+    /**
+     * Dimension of the first of the parts of a z/m geometry, which all others must share.
+     *
+     * @throws IllegalArgumentException if there is no part or the dimensions differ
+     */
+    static WKTDimension common(GeometryZM[] parts) {
+        if (parts.length == 0) {
+            throw new IllegalArgumentException("No part to take the dimension from, use the empty constructor");
+        }
+        WKTDimension dimension = of(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            if (of(parts[i]) != dimension) {
+                throw new IllegalArgumentException("Part " + i + " is " + of(parts[i]) + ", part 0 is " + dimension);
+            }
+        }
+        return dimension;
+    }
+}
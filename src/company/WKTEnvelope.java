@@ -0,0 +1,84 @@
+package company;
+
+/**
+ * Extent and element counts of a WKT record, see {@link WKTReader#readEnvelope(CharSequence)}. e.g.
+ * <pre><code>
+ * reader.readEnvelope("POLYGON ((35 10, 45 45, 15 40, 10 20, 35 10), (20 30, 35 35, 30 20, 20 30))");
+ * //returns POLYGON [10.0 10.0, 45.0 45.0], 9 vertices, 2 rings, 1 parts
+ * </code></pre>
+ * The bounds of an empty geometry are NaN. Instances are immutable.
+ */
+public final class WKTEnvelope {
+
+    private final WKTGeometryType type;
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+    private final int numVertices;
+    private final int numRings;
+    private final int numParts;
+
+    WKTEnvelope(WKTGeometryType type, double minX, double minY, double maxX, double maxY,
+                int numVertices, int numRings, int numParts) {
+        this.type = type;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.numVertices = numVertices;
+        this.numRings = numRings;
+        this.numParts = numParts;
+    }
+
+    /**
+     * WKT keyword of the outermost geometry, e.g. "MULTIPOLYGON".
+     */
+    public String getGeometryType() {
+        return type.getKeyword();
+    }
+
+    public boolean isEmpty() {
+        return numVertices == 0;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    /**
+     * Number of non empty polygon rings, outer rings and holes.
+     */
+    public int getNumRings() {
+        return numRings;
+    }
+
+    /**
+     * Number of non empty points, linestrings and polygons, at any nesting depth.
+     */
+    public int getNumParts() {
+        return numParts;
+    }
+
+    @Override
+    public String toString() {
+        return getGeometryType() + " [" + minX + " " + minY + ", " + maxX + " " + maxY + "], " + numVertices
+                + " vertices, " + numRings + " rings, " + numParts + " parts";
+    }
+}
@@ -0,0 +1,40 @@
+package company;
+
+import java.io.IOException;
+
+/**
+ * Receives the content of a WKT geometry from a {@link WKTPushParser} as it is parsed. e.g.
+ * <code>MULTIPOINT ((1 2), EMPTY)</code> produces
+ * <pre><code>
+ * startGeometry("MULTIPOINT")
+ *   startGeometry("POINT") coordinate(1, 2) endGeometry()
+ *   startGeometry("POINT") endGeometry()
+ * endGeometry()
+ * </code></pre>
+ * Every geometry, including each member of a multi geometry, is enclosed in startGeometry and
+ * endGeometry. startRing and endRing enclose every coordinate sequence, i.e. the vertices of a linestring
+ * or one ring of a polygon; the coordinate of a point is reported without them. An empty geometry or ring
+ * has no coordinates.
+ * <p>
+ * All methods do nothing by default.
+ */
+public interface WKTEventHandler {
+
+    /**
+     * @param type WKT keyword of the geometry, e.g. "POLYGON"
+     */
+    default void startGeometry(String type) throws IOException {
+    }
+
+    default void startRing() throws IOException {
+    }
+
+    default void coordinate(double x, double y) throws IOException {
+    }
+
+    default void endRing() throws IOException {
+    }
+
+    default void endGeometry() throws IOException {
+    }
+}
@@ -0,0 +1,40 @@
+package company;
+
+/**
+ * Geometry tagged text keywords recognised by {@link WKTReader}.
+ */
+enum WKTGeometryType {
+
+    POINT("POINT"),
+    LINESTRING("LINESTRING"),
+    POLYGON("POLYGON"),
+    MULTIPOINT("MULTIPOINT"),
+    MULTILINESTRING("MULTILINESTRING"),
+    MULTIPOLYGON("MULTIPOLYGON"),
+    GEOMETRYCOLLECTION("GEOMETRYCOLLECTION");
+
+    private static final WKTGeometryType[] VALUES = values();
+
+    private final String keyword;
+
+    WKTGeometryType(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    /**
+     * Returns the type whose keyword equals (ignoring case) the characters between start and end,
+     * or null if there is no such type.
+     */
+    static WKTGeometryType forKeyword(CharSequence input, int start, int end) {
+        for (WKTGeometryType type : VALUES) {
+            if (WKTTokenizer.regionMatches(input, start, end, type.keyword)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,20 @@
+package company;
+
+import com.sinergise.geometry.Geometry;
+
+import java.io.IOException;
+
+/**
+ * Writes the tagged text of one geometry class for {@link WKTWriter}, see
+ * {@link WKTWriter#register(Class, String, WKTGeometryWriter)}.
+ */
+public interface WKTGeometryWriter<T extends Geometry> {
+
+    /**
+     * Appends the text following the keyword of a non-empty geometry, e.g. <code>(30 10, 10 30)</code>.
+     * The keyword, the separating space and the <code>EMPTY</code> form are written by the {@link WKTWriter}.
+     *
+     * @param writer the calling writer, for writing nested geometries and ordinates consistently
+     */
+    void writeText(T geom, WKTWriter writer, Appendable out) throws IOException;
+}
@@ -0,0 +1,214 @@
+package company;
+
+import com.sinergise.geometry.Geometry;
+import com.sinergise.geometry.LineString;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Handle to a WKT record whose structure has been scanned but whose coordinates have not been parsed yet,
+ * see {@link WKTReader#readLazy(CharSequence)}. e.g.
+ * <pre><code>
+ * WKTLazyGeometry lazy = reader.readLazy("MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((5 5, 6 5, 6 6, 5 5)))");
+ * lazy.getGeometryType();           //returns "MULTIPOLYGON"
+ * lazy.getNumParts();               //returns 2
+ * lazy.getCoordinateSequence(1);    //returns LINESTRING (5 5, 6 5, 6 6, 5 5)
+ * lazy.getGeometry();               //parses the whole MultiPolygon
+ * </code></pre>
+ * The scan only checks the type keywords and that brackets are balanced; any other syntax error surfaces
+ * when the coordinates are parsed. Coordinate sequences are the innermost bracketed lists of numbers,
+ * i.e. rings, linestrings and bracketed points, in the order they appear in the text. An EWKT SRID prefix
+ * is skipped by the scan; the dimension tag of the geometry, or of the collection member a sequence belongs
+ * to, is recorded with each sequence.
+ * <p>
+ * The geometry is parsed at most once and then kept. Handles are thread-safe.
+ */
+public final class WKTLazyGeometry {
+
+    private static final int[] NO_SEQUENCES = new int[0];
+    private static final WKTDimension[] NO_DIMENSIONS = new WKTDimension[0];
+
+    private final WKTReader reader;
+    private final CharSequence input;
+    private final int start;
+    private final int end;
+    private final WKTGeometryType type;
+    private final int numParts;
+    private final int numCoordinates;
+    private final int[] sequences;
+    private final WKTDimension[] sequenceDimensions;
+    private final int numSequences;
+    private volatile Geometry geometry;
+
+    private WKTLazyGeometry(WKTReader reader, CharSequence input, int start, int end, WKTGeometryType type,
+                            int numParts, int numCoordinates, int[] sequences, WKTDimension[] sequenceDimensions,
+                            int numSequences) {
+        this.reader = reader;
+        this.input = input;
+        this.start = start;
+        this.end = end;
+        this.type = type;
+        this.numParts = numParts;
+        this.numCoordinates = numCoordinates;
+        this.sequences = sequences;
+        this.sequenceDimensions = sequenceDimensions;
+        this.numSequences = numSequences;
+    }
+
+    static WKTLazyGeometry scan(WKTReader reader, CharSequence input, int start, int end) throws IOException {
+        WKTTokenizer tokenizer = new WKTTokenizer(input, start, end);
+        tokenizer.readSrid();
+        WKTGeometryType type = tokenizer.readGeometryType();
+        boolean collection = type == WKTGeometryType.GEOMETRYCOLLECTION;
+        // members of a collection are tagged separately, untagged ones are left to detect the dimension
+        WKTDimension dimension = collection ? null : tokenizer.readDimension();
+        if (tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+            tokenizer.expectEnd();
+            return new WKTLazyGeometry(reader, input, start, end, type, 0, 0, NO_SEQUENCES, NO_DIMENSIONS, 0);
+        }
+        if (tokenizer.peek() != '(') {
+            tokenizer.expectOpenBracket();
+        }
+
+        int[] sequences = new int[16];
+        WKTDimension[] sequenceDimensions = new WKTDimension[8];
+        // dimension in effect at each bracket depth, taken over from the enclosing depth unless tagged
+        WKTDimension[] depthDimensions = new WKTDimension[8];
+        depthDimensions[0] = dimension;
+        WKTDimension memberDimension = null;
+        boolean member = false;
+        boolean memberStart = false;
+        int numSequences = 0;
+        int numCoordinates = 0;
+        int topLevelCommas = 0;
+        int depth = 0;
+        int open = -1;
+        int commas = 0;
+        boolean numeric = false;
+        int pos = tokenizer.position();
+        while (pos < end) {
+            char c = input.charAt(pos++);
+            if (collection && memberStart && WKTTokenizer.isLetter(c)) {
+                // type keyword and tag of a collection member, or EMPTY
+                tokenizer.seek(pos - 1);
+                if (!tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+                    tokenizer.readGeometryType();
+                    memberDimension = tokenizer.readDimension();
+                    member = true;
+                }
+                pos = tokenizer.position();
+                memberStart = false;
+                continue;
+            }
+            if (!Character.isWhitespace(c)) {
+                memberStart = c == '(' || c == ',';
+            }
+            if (c == '(') {
+                depth++;
+                if (depth == depthDimensions.length) {
+                    depthDimensions = Arrays.copyOf(depthDimensions, depth << 1);
+                }
+                depthDimensions[depth] = member ? memberDimension : depthDimensions[depth - 1];
+                member = false;
+                open = pos - 1;
+                commas = 0;
+                numeric = false;
+            } else if (c == ')') {
+                if (open >= 0 && numeric) {
+                    if (numSequences == sequenceDimensions.length) {
+                        sequences = Arrays.copyOf(sequences, numSequences << 2);
+                        sequenceDimensions = Arrays.copyOf(sequenceDimensions, numSequences << 1);
+                    }
+                    sequences[numSequences * 2] = open;
+                    sequences[numSequences * 2 + 1] = pos;
+                    sequenceDimensions[numSequences] = depthDimensions[depth];
+                    numSequences++;
+                    numCoordinates += commas + 1;
+                }
+                open = -1;
+                if (--depth == 0) {
+                    break;
+                }
+            } else if (c == ',') {
+                member = false;
+                commas++;
+                if (depth == 1) {
+                    topLevelCommas++;
+                }
+            } else if (c >= '0' && c <= '9') {
+                numeric = true;
+            }
+        }
+        if (depth != 0) {
+            throw WKTParseException.at("Unbalanced brackets", input, start, end);
+        }
+        new WKTTokenizer(input, pos, end).expectEnd();
+
+        int numParts = type == WKTGeometryType.POINT || type == WKTGeometryType.LINESTRING ? 1 : topLevelCommas + 1;
+        return new WKTLazyGeometry(reader, input, start, end, type, numParts, numCoordinates, sequences,
+                sequenceDimensions, numSequences);
+    }
+
+    /**
+     * WKT keyword of the geometry, e.g. "POLYGON".
+     */
+    public String getGeometryType() {
+        return type.getKeyword();
+    }
+
+    public boolean isEmpty() {
+        return numParts == 0;
+    }
+
+    /**
+     * Number of members of a multi geometry or collection, number of rings of a polygon, 1 for a non empty
+     * point or linestring and 0 for an empty geometry.
+     */
+    public int getNumParts() {
+        return numParts;
+    }
+
+    public int getNumCoordinateSequences() {
+        return numSequences;
+    }
+
+    /**
+     * Total number of vertices in all coordinate sequences.
+     */
+    public int getNumCoordinates() {
+        return numCoordinates;
+    }
+
+    /**
+     * Parses only the i-th coordinate sequence, e.g. the outer ring of a polygon for a bounding box test.
+     */
+    public LineString getCoordinateSequence(int i) throws IOException {
+        if (i < 0 || i >= numSequences) {
+            throw new IndexOutOfBoundsException("Coordinate sequence " + i + " of " + numSequences);
+        }
+        return reader.readCoordinates(input, sequences[i * 2], sequences[i * 2 + 1], sequenceDimensions[i]);
+    }
+
+    /**
+     * Parses the whole geometry on first access; concurrent first calls wait for a single parse.
+     */
+    public Geometry getGeometry() throws IOException {
+        Geometry result = geometry;
+        if (result == null) {
+            synchronized (this) {
+                result = geometry;
+                if (result == null) {
+                    result = reader.readRecord(input, start, end);
+                    geometry = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return input.subSequence(start, end).toString();
+    }
+}
@@ -0,0 +1,50 @@
+package company;
+
+import com.sinergise.geometry.Geometry;
+
+/**
+ * Receives one call per geometry read by a {@link WKTReader} or written by a {@link WKTWriter}, e.g.
+ * <pre><code>
+ * WKTMetricsRecorder metrics = new WKTMetricsRecorder();
+ * WKTReader reader = new WKTReader(metrics);
+ * ...
+ * metrics.snapshot().writeTo(out);
+ * </code></pre>
+ * All methods default to doing nothing. With {@link #NONE}, the default of readers and writers, neither
+ * the clock nor the listener is called at all. Implementations are called concurrently from every thread
+ * using the reader or writer, so they must be thread-safe and should be cheap.
+ */
+public interface WKTMetrics {
+
+    /**
+     * Listener that records nothing.
+     */
+    WKTMetrics NONE = new WKTMetrics() {
+    };
+
+    /**
+     * Called after a record of the given number of characters (bytes, for ASCII input) and vertices was
+     * parsed.
+     */
+    default void geometryRead(Geometry geometry, long characters, long vertices, long nanos) {
+    }
+
+    /**
+     * Called after a geometry was written as the given number of characters and vertices. Vertices that a
+     * custom {@link WKTGeometryWriter} writes with {@link WKTWriter#writeNumber} are not counted.
+     */
+    default void geometryWritten(Geometry geometry, long characters, long vertices, long nanos) {
+    }
+
+    /**
+     * Called when parsing a record failed, before the exception is rethrown.
+     */
+    default void readFailed(Throwable cause) {
+    }
+
+    /**
+     * Called when writing a geometry failed, before the exception is rethrown.
+     */
+    default void writeFailed(Throwable cause) {
+    }
+}
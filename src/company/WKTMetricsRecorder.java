@@ -0,0 +1,167 @@
+package company;
+
+import com.sinergise.geometry.*;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link WKTMetrics} that counts calls, characters and vertices per geometry type, keeps power of two
+ * latency histograms and counts errors per exception class, for reads and writes separately. Counters
+ * are {@link LongAdder}s, so threads recording at the same time do not contend on one cache line.
+ * <p>
+ * Instances are thread-safe. A {@link #snapshot()} taken while recording is running is not atomic across
+ * counters, but each value in it is exact at some instant.
+ */
+public final class WKTMetricsRecorder implements WKTMetrics {
+
+    static final String OTHER_TYPE = "OTHER";
+
+    /**
+     * Type keywords indexed as by {@link #typeIndex(Geometry)}.
+     */
+    static final String[] TYPES = {
+            WKTGeometryType.POINT.getKeyword(), WKTGeometryType.LINESTRING.getKeyword(), WKTGeometryType.POLYGON.getKeyword(),
+            WKTGeometryType.MULTIPOINT.getKeyword(), WKTGeometryType.MULTILINESTRING.getKeyword(),
+            WKTGeometryType.MULTIPOLYGON.getKeyword(), WKTGeometryType.GEOMETRYCOLLECTION.getKeyword(), OTHER_TYPE
+    };
+
+    /**
+     * Bucket i counts latencies below 2^i ns; the last bucket, from about 9 minutes, is open ended.
+     */
+    static final int LATENCY_BUCKETS = 40;
+
+    private final Counters read = new Counters();
+    private final Counters write = new Counters();
+
+    @Override
+    public void geometryRead(Geometry geometry, long characters, long vertices, long nanos) {
+        read.record(geometry, characters, vertices, nanos);
+    }
+
+    @Override
+    public void geometryWritten(Geometry geometry, long characters, long vertices, long nanos) {
+        write.record(geometry, characters, vertices, nanos);
+    }
+
+    @Override
+    public void readFailed(Throwable cause) {
+        read.fail(cause);
+    }
+
+    @Override
+    public void writeFailed(Throwable cause) {
+        write.fail(cause);
+    }
+
+    /**
+     * Returns the current values of all counters.
+     */
+    public WKTMetricsSnapshot snapshot() {
+        return new WKTMetricsSnapshot(read.snapshot(), write.snapshot());
+    }
+
+    /**
+     * Resets all counters to zero. Calls recorded while resetting may be partly lost.
+     */
+    public void reset() {
+        read.reset();
+        write.reset();
+    }
+
+    static int typeIndex(Geometry geometry) {
+        if (geometry instanceof EWKTGeometry) {
+            return typeIndex(((EWKTGeometry) geometry).getGeometry());
+        }
+        if (geometry instanceof Point || geometry instanceof PointZM) {
+            return 0;
+        }
+        if (geometry instanceof LineString) {
+            return 1;
+        }
+        if (geometry instanceof Polygon) {
+            return 2;
+        }
+        if (geometry instanceof MultiPoint || geometry instanceof MultiPointZM) {
+            return 3;
+        }
+        if (geometry instanceof MultiLineString || geometry instanceof MultiLineStringZM) {
+            return 4;
+        }
+        if (geometry instanceof MultiPolygon || geometry instanceof MultiPolygonZM) {
+            return 5;
+        }
+        if (geometry instanceof GeometryCollection) {
+            return 6;
+        }
+        return 7;
+    }
+
+    static int latencyBucket(long nanos) {
+        return Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+    }
+
+    private static LongAdder[] adders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static long[] sums(LongAdder[] adders) {
+        long[] sums = new long[adders.length];
+        for (int i = 0; i < adders.length; i++) {
+            sums[i] = adders[i].sum();
+        }
+        return sums;
+    }
+
+    private static void reset(LongAdder[] adders) {
+        for (LongAdder adder : adders) {
+            adder.reset();
+        }
+    }
+
+    private static final class Counters {
+        final LongAdder[] counts = adders(TYPES.length);
+        final LongAdder[] characters = adders(TYPES.length);
+        final LongAdder[] vertices = adders(TYPES.length);
+        final LongAdder[] latencies = adders(LATENCY_BUCKETS);
+        final LongAdder totalNanos = new LongAdder();
+        final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        void record(Geometry geometry, long chars, long numVertices, long nanos) {
+            int type = typeIndex(geometry);
+            counts[type].increment();
+            characters[type].add(chars);
+            vertices[type].add(numVertices);
+            latencies[latencyBucket(nanos)].increment();
+            totalNanos.add(nanos);
+        }
+
+        void fail(Throwable cause) {
+            errors.computeIfAbsent(cause.getClass().getName(), name -> new LongAdder()).increment();
+        }
+
+        WKTMetricsSnapshot.Operation snapshot() {
+            Map<String, Long> errorCounts = new TreeMap<>();
+            for (Map.Entry<String, LongAdder> error : errors.entrySet()) {
+                errorCounts.put(error.getKey(), error.getValue().sum());
+            }
+            return new WKTMetricsSnapshot.Operation(sums(counts), sums(characters), sums(vertices), sums(latencies),
+                    totalNanos.sum(), errorCounts);
+        }
+
+        void reset() {
+            WKTMetricsRecorder.reset(counts);
+            WKTMetricsRecorder.reset(characters);
+            WKTMetricsRecorder.reset(vertices);
+            WKTMetricsRecorder.reset(latencies);
+            totalNanos.reset();
+            errors.clear();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package company;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Values of a {@link WKTMetricsRecorder} at one point in time. {@link #writeTo(Appendable)} writes them in
+ * the Prometheus text exposition format, e.g. for a local scrape endpoint:
+ * <pre><code>
+ * # TYPE wkt_read_geometries_total counter
+ * wkt_read_geometries_total{type="POINT"} 1200
+ * ...
+ * wkt_read_seconds_bucket{le="1.6384E-5"} 1187
+ * </code></pre>
+ * Instances are immutable.
+ */
+public final class WKTMetricsSnapshot {
+
+    private final Operation read;
+    private final Operation write;
+
+    WKTMetricsSnapshot(Operation read, Operation write) {
+        this.read = read;
+        this.write = write;
+    }
+
+    public Operation getRead() {
+        return read;
+    }
+
+    public Operation getWrite() {
+        return write;
+    }
+
+    /**
+     * Appends all values in the Prometheus text format.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        read.writeTo("wkt_read", out);
+        write.writeTo("wkt_write", out);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeTo(sb);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Counters of either reads or writes. Geometry types are given as WKT keywords, e.g. "POLYGON", or
+     * "OTHER" for registered types the writer does not know.
+     */
+    public static final class Operation {
+
+        private final long[] counts;
+        private final long[] characters;
+        private final long[] vertices;
+        private final long[] latencies;
+        private final long totalNanos;
+        private final Map<String, Long> errors;
+
+        Operation(long[] counts, long[] characters, long[] vertices, long[] latencies, long totalNanos,
+                  Map<String, Long> errors) {
+            this.counts = counts;
+            this.characters = characters;
+            this.vertices = vertices;
+            this.latencies = latencies;
+            this.totalNanos = totalNanos;
+            this.errors = Collections.unmodifiableMap(errors);
+        }
+
+        public long getCount() {
+            return sum(counts);
+        }
+
+        public long getCount(String type) {
+            return counts[index(type)];
+        }
+
+        public long getCharacters() {
+            return sum(characters);
+        }
+
+        public long getCharacters(String type) {
+            return characters[index(type)];
+        }
+
+        public long getVertices() {
+            return sum(vertices);
+        }
+
+        public long getVertices(String type) {
+            return vertices[index(type)];
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Number of calls per latency bucket; bucket i counts calls that took less than 2^i ns and at least
+         * half of that, the last bucket all longer ones.
+         */
+        public long[] getLatencyHistogram() {
+            return latencies.clone();
+        }
+
+        /**
+         * Number of failures per exception class name.
+         */
+        public Map<String, Long> getErrors() {
+            return errors;
+        }
+
+        private void writeTo(String prefix, Appendable out) throws IOException {
+            writeCounter(prefix + "_geometries_total", counts, out);
+            writeCounter(prefix + "_characters_total", characters, out);
+            writeCounter(prefix + "_vertices_total", vertices, out);
+
+            String histogram = prefix + "_seconds";
+            out.append("# TYPE ").append(histogram).append(" histogram\n");
+            long cumulative = 0;
+            for (int i = 0; i < latencies.length - 1; i++) {
+                cumulative += latencies[i];
+                out.append(histogram).append("_bucket{le=\"").append(Double.toString((1L << i) / 1e9)).append("\"} ")
+                        .append(Long.toString(cumulative)).append('\n');
+            }
+            cumulative += latencies[latencies.length - 1];
+            out.append(histogram).append("_bucket{le=\"+Inf\"} ").append(Long.toString(cumulative)).append('\n');
+            out.append(histogram).append("_sum ").append(Double.toString(totalNanos / 1e9)).append('\n');
+            out.append(histogram).append("_count ").append(Long.toString(cumulative)).append('\n');
+
+            String errorCounter = prefix + "_errors_total";
+            out.append("# TYPE ").append(errorCounter).append(" counter\n");
+            for (Map.Entry<String, Long> error : errors.entrySet()) {
+                out.append(errorCounter).append("{cause=\"").append(error.getKey()).append("\"} ")
+                        .append(Long.toString(error.getValue())).append('\n');
+            }
+        }
+
+        private static void writeCounter(String name, long[] values, Appendable out) throws IOException {
+            out.append("# TYPE ").append(name).append(" counter\n");
+            for (int i = 0; i < values.length; i++) {
+                out.append(name).append("{type=\"").append(WKTMetricsRecorder.TYPES[i]).append("\"} ")
+                        .append(Long.toString(values[i])).append('\n');
+            }
+        }
+
+        private static int index(String type) {
+            for (int i = 0; i < WKTMetricsRecorder.TYPES.length; i++) {
+                if (WKTMetricsRecorder.TYPES[i].equalsIgnoreCase(type)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("Unknown geometry type " + type);
+        }
+
+        private static long sum(long[] values) {
+            long sum = 0;
+            for (long value : values) {
+                sum += value;
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package company;
+
+import java.io.IOException;
+
+/**
+ * Invalid WKT, reported at the first character that cannot continue a valid geometry. Offset, line and
+ * column are counted from the start of the record, or of the file for errors of a {@link WKTBulkLoader},
+ * lines and columns from 1.
+ */
+public class WKTParseException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long offset;
+    private final int line;
+    private final int column;
+
+    public WKTParseException(String message, long offset, int line, int column) {
+        super(message);
+        this.offset = offset;
+        this.line = line;
+        this.column = column;
+    }
+
+    public WKTParseException(String message, long offset, int line, int column, Throwable cause) {
+        super(message, cause);
+        this.offset = offset;
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Error at position pos of the record starting at start of the input, with the location appended to
+     * the message.
+     */
+    static WKTParseException at(String message, CharSequence input, int start, int pos) {
+        int line = 1;
+        int lineStart = start;
+        for (int i = start; i < pos; i++) {
+            if (input.charAt(i) == '\n') {
+                line++;
+                lineStart = i + 1;
+            }
+        }
+        int column = pos - lineStart + 1;
+        return new WKTParseException(message + " at line " + line + ", column " + column, pos - start, line, column);
+    }
+
+    /**
+     * Number of characters (bytes, for ASCII input) before the error.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+}
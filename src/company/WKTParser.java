@@ -0,0 +1,784 @@
+package company;
+
+import com.sinergise.geometry.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser that builds geometries directly while walking the {@link WKTTokenizer}
+ * once from left to right.
+ * <p>
+ * Besides standard WKT the parser accepts the tagged empty members {@link WKTWriter} produces inside
+ * multi geometries, e.g. <code>MULTIPOINT (POINT EMPTY, (1 2))</code> or
+ * <code>MULTIPOLYGON ((POLYGON EMPTY), ((1 2, 3 4, 1 2)))</code>.
+ * <p>
+ * Vertices may carry z and m ordinates, either tagged as in <code>POINT ZM (1 2 3 4)</code> or, as PostGIS
+ * writes them, untagged with 3 (x y z) or 4 ordinates. The dimension is decided once, at the first vertex,
+ * so every coordinate sequence is read by a loop that does not test it per vertex. Such a geometry is built
+ * of the z/m types throughout, e.g. a {@link MultiPolygonZM} of {@link PolygonZM}s, whose empty members and
+ * rings get the same dimension; a member tagged with another one is rejected.
+ */
+final class WKTParser {
+
+    /**
+     * One parser per thread, so that parsing on a shared {@link WKTReader} neither allocates the scratch
+     * state nor contends for it.
+     */
+    static final ThreadLocalScratch<WKTParser> SCRATCH = new ThreadLocalScratch<>(WKTParser::new);
+
+    private final WKTTokenizer tokenizer = new WKTTokenizer();
+    private final CoordinateBuffer coordinates = new CoordinateBuffer();
+    private final CoordinateBuffer zValues = new CoordinateBuffer();
+    private final CoordinateBuffer mValues = new CoordinateBuffer();
+
+    /**
+     * Dimension of the geometry being parsed, null until a tag or the first vertex decides it.
+     */
+    private WKTDimension dimension;
+    private double firstZ;
+    private double firstM;
+
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+    private int numVertices;
+    private int numRings;
+    private int numParts;
+
+    /**
+     * Parses the geometry between start and end of the input, which must not contain anything else. With
+     * an EWKT prefix <code>SRID=n;</code> the geometry is returned in an {@link EWKTGeometry}.
+     */
+    Geometry parse(CharSequence input, int start, int end) throws IOException {
+        tokenizer.reset(input, start, end);
+        numVertices = 0;
+        try {
+            int srid = tokenizer.readSrid();
+            Geometry geometry = parseGeometry();
+            tokenizer.expectEnd();
+            return srid == WKTTokenizer.NO_SRID ? geometry : new EWKTGeometry(srid, geometry);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Parses a single bracketed coordinate sequence, e.g. one ring of a polygon, of the given dimension or,
+     * if that is null, of the dimension of its first vertex.
+     */
+    LineString parseCoordinates(CharSequence input, int start, int end, WKTDimension dimension) throws IOException {
+        tokenizer.reset(input, start, end);
+        this.dimension = dimension;
+        try {
+            LineString coords = readCoordinates();
+            tokenizer.expectEnd();
+            return coords;
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Parses one member of a multi geometry of the given type, in any of the forms the sequential parser
+     * accepts inside its brackets, e.g. <code>((1 2, 3 4, 1 2))</code> or <code>POLYGON EMPTY</code>. The
+     * member has the given dimension of the multi geometry or, if that is null, that of its first vertex.
+     */
+    Geometry parseMember(WKTGeometryType container, CharSequence input, int start, int end, WKTDimension dimension) throws IOException {
+        tokenizer.reset(input, start, end);
+        this.dimension = dimension;
+        numVertices = 0;
+        try {
+            Geometry member;
+            switch (container) {
+                case MULTIPOINT:
+                    member = readMultiPointMember();
+                    break;
+                case MULTILINESTRING:
+                    member = readLineStringMember();
+                    break;
+                case MULTIPOLYGON:
+                    member = readPolygonMember();
+                    break;
+                default:
+                    member = parseGeometry();
+                    break;
+            }
+            tokenizer.expectEnd();
+            return member;
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Number of vertices of the geometry last returned by {@link #parse} or {@link #parseMember}.
+     */
+    int getNumVertices() {
+        return numVertices;
+    }
+
+    /**
+     * Walks the same grammar as {@link #parse} but only accumulates the extent and counts, no geometry or
+     * coordinate array is built.
+     */
+    WKTEnvelope scanEnvelope(CharSequence input, int start, int end) throws IOException {
+        tokenizer.reset(input, start, end);
+        minX = Double.POSITIVE_INFINITY;
+        minY = Double.POSITIVE_INFINITY;
+        maxX = Double.NEGATIVE_INFINITY;
+        maxY = Double.NEGATIVE_INFINITY;
+        numVertices = 0;
+        numRings = 0;
+        numParts = 0;
+        try {
+            tokenizer.readSrid();
+            WKTGeometryType type = scanGeometry();
+            tokenizer.expectEnd();
+            if (numVertices == 0) {
+                return new WKTEnvelope(type, Double.NaN, Double.NaN, Double.NaN, Double.NaN, 0, 0, 0);
+            }
+            return new WKTEnvelope(type, minX, minY, maxX, maxY, numVertices, numRings, numParts);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Walks the same grammar as {@link #parse} for a 2D point, linestring, polygon or multi geometry and
+     * appends it to the columns of the decoder, see {@link WKTColumnarBatch} for the layout.
+     */
+    void decodeColumns(CharSequence input, int start, int end, WKTColumnarDecoder columns) throws IOException {
+        tokenizer.reset(input, start, end);
+        // tags of members do not change the dimension either
+        dimension = WKTDimension.XY;
+        try {
+            WKTGeometryType type = tokenizer.readGeometryType();
+            if (tokenizer.readDimension() != null) {
+                throw tokenizer.error("Columnar batches hold x y coordinates only");
+            }
+            if (!tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+                decodeGeometryText(type, columns);
+            }
+            tokenizer.expectEnd();
+            columns.endGeometry(type);
+        } finally {
+            release();
+        }
+    }
+
+    private void release() {
+        tokenizer.reset(null, 0, 0);
+        dimension = null;
+        coordinates.trim();
+        zValues.trim();
+        mValues.trim();
+    }
+
+    /**
+     * Parses a tagged geometry; the members of a collection each have their own dimension.
+     */
+    private Geometry parseGeometry() throws IOException {
+        WKTGeometryType type = tokenizer.readGeometryType();
+        WKTDimension outer = dimension;
+        dimension = tokenizer.readDimension();
+        Geometry geometry;
+        switch (type) {
+            case POINT:
+                geometry = parsePoint();
+                break;
+            case LINESTRING:
+                geometry = parseLineString();
+                break;
+            case POLYGON:
+                geometry = parsePolygon();
+                break;
+            case MULTIPOINT:
+                geometry = parseMultiPoint();
+                break;
+            case MULTILINESTRING:
+                geometry = parseMultiLineString();
+                break;
+            case MULTIPOLYGON:
+                geometry = parseMultiPolygon();
+                break;
+            case GEOMETRYCOLLECTION:
+                geometry = parseGeometryCollection();
+                break;
+            default:
+                throw tokenizer.error("Unsupported geometry type " + type.getKeyword());
+        }
+        dimension = outer;
+        return geometry;
+    }
+
+    private Geometry parsePoint() throws IOException {
+        if (tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+            return emptyPoint();
+        }
+        tokenizer.expectOpenBracket();
+        Geometry point = readCoordinate();
+        tokenizer.expectCloseBracket();
+        return point;
+    }
+
+    private LineString parseLineString() throws IOException {
+        if (tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+            return emptyLineString();
+        }
+        return readCoordinates();
+    }
+
+    private Polygon parsePolygon() throws IOException {
+        if (tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+            return emptyPolygon();
+        }
+        return readPolygonText();
+    }
+
+    private GeometryCollection<?> parseMultiPoint() throws IOException {
+        if (tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+            return isPlanar() ? new MultiPoint() : new MultiPointZM(dimension.hasZ(), dimension.hasM());
+        }
+        tokenizer.expectOpenBracket();
+        List<Geometry> points = new ArrayList<>();
+        do {
+            points.add(readMultiPointMember());
+        } while (tokenizer.nextElement());
+        if (isPlanar()) {
+            return new MultiPoint(points.toArray(new Point[points.size()]));
+        }
+        PointZM[] pointsZM = new PointZM[points.size()];
+        for (int i = 0; i < pointsZM.length; i++) {
+            Geometry point = points.get(i);
+            // empty members before the first vertex were read while the dimension was not known yet
+            pointsZM[i] = point instanceof PointZM ? (PointZM) point : new PointZM(dimension.hasZ(), dimension.hasM());
+        }
+        return new MultiPointZM(pointsZM);
+    }
+
+    private GeometryCollection<? extends LineString> parseMultiLineString() throws IOException {
+        if (tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+            return isPlanar() ? new MultiLineString() : new MultiLineStringZM(dimension.hasZ(), dimension.hasM());
+        }
+        tokenizer.expectOpenBracket();
+        List<LineString> lineStrings = new ArrayList<>();
+        do {
+            lineStrings.add(readLineStringMember());
+        } while (tokenizer.nextElement());
+        if (isPlanar()) {
+            return new MultiLineString(lineStrings.toArray(new LineString[lineStrings.size()]));
+        }
+        LineStringZM[] lineStringsZM = new LineStringZM[lineStrings.size()];
+        for (int i = 0; i < lineStringsZM.length; i++) {
+            LineString lineString = lineStrings.get(i);
+            // empty members before the first vertex were read while the dimension was not known yet
+            lineStringsZM[i] = lineString instanceof LineStringZM ? (LineStringZM) lineString : (LineStringZM) emptyLineString();
+        }
+        return new MultiLineStringZM(lineStringsZM);
+    }
+
+    private GeometryCollection<? extends Polygon> parseMultiPolygon() throws IOException {
+        if (tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+            return isPlanar() ? new MultiPolygon() : new MultiPolygonZM(dimension.hasZ(), dimension.hasM());
+        }
+        tokenizer.expectOpenBracket();
+        List<Polygon> polygons = new ArrayList<>();
+        do {
+            polygons.add(readPolygonMember());
+        } while (tokenizer.nextElement());
+        if (isPlanar()) {
+            return new MultiPolygon(polygons.toArray(new Polygon[polygons.size()]));
+        }
+        PolygonZM[] polygonsZM = new PolygonZM[polygons.size()];
+        for (int i = 0; i < polygonsZM.length; i++) {
+            Polygon polygon = polygons.get(i);
+            polygonsZM[i] = polygon instanceof PolygonZM ? (PolygonZM) polygon : (PolygonZM) emptyPolygon();
+        }
+        return new MultiPolygonZM(polygonsZM);
+    }
+
+    private GeometryCollection<Geometry> parseGeometryCollection() throws IOException {
+        if (tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+            return new GeometryCollection<>();
+        }
+        tokenizer.expectOpenBracket();
+        List<Geometry> elements = new ArrayList<>();
+        do {
+            elements.add(parseGeometry());
+        } while (tokenizer.nextElement());
+        return new GeometryCollection<>(elements);
+    }
+
+    /**
+     * Member of a MULTIPOINT: <code>(x y)</code>, <code>x y</code>, <code>EMPTY</code> or <code>POINT EMPTY</code>.
+     */
+    private Geometry readMultiPointMember() throws IOException {
+        if (tokenizer.isWordNext()) {
+            return readMemberTag(WKTGeometryType.POINT) ? emptyPoint() : parsePoint();
+        }
+        if (tokenizer.tryOpenBracket()) {
+            Geometry point = readCoordinate();
+            tokenizer.expectCloseBracket();
+            return point;
+        }
+        return readCoordinate();
+    }
+
+    /**
+     * Member of a MULTILINESTRING or a polygon ring: <code>(x y, ...)</code>, <code>EMPTY</code> or
+     * <code>LINESTRING ...</code>.
+     */
+    private LineString readLineStringMember() throws IOException {
+        if (tokenizer.isWordNext()) {
+            return readMemberTag(WKTGeometryType.LINESTRING) ? emptyLineString() : parseLineString();
+        }
+        return readCoordinates();
+    }
+
+    /**
+     * Member of a MULTIPOLYGON: <code>((x y, ...), ...)</code>, <code>EMPTY</code>, <code>POLYGON ...</code>
+     * or <code>(POLYGON EMPTY)</code>.
+     */
+    private Polygon readPolygonMember() throws IOException {
+        if (tokenizer.isWordNext()) {
+            return readMemberTag(WKTGeometryType.POLYGON) ? emptyPolygon() : parsePolygon();
+        }
+        return readPolygonText();
+    }
+
+    private Polygon readPolygonText() throws IOException {
+        tokenizer.expectOpenBracket();
+        int polygonStart = tokenizer.position() - 1;
+        if (tokenizer.isWordNext()) {
+            if (!readMemberTag(WKTGeometryType.POLYGON)) {
+                tokenizer.expectKeyword(WKTTokenizer.EMPTY);
+            }
+            tokenizer.expectCloseBracket();
+            return emptyPolygon();
+        }
+        LineString outer = readCoordinates();
+        List<LineString> holes = null;
+        while (tokenizer.nextElement()) {
+            if (holes == null) {
+                holes = new ArrayList<>();
+            }
+            holes.add(readLineStringMember());
+        }
+        try {
+            if (isPlanar()) {
+                return new Polygon(outer, holes == null ? null : holes.toArray(new LineString[holes.size()]));
+            }
+            // the outer ring decided the dimension, so the holes were read with it
+            return new PolygonZM((LineStringZM) outer, holes == null ? null : holes.toArray(new LineStringZM[holes.size()]));
+        } catch (IllegalArgumentException e) {
+            // e.g. a ring that is not closed
+            throw tokenizer.errorAt(e.getMessage(), polygonStart);
+        }
+    }
+
+    /**
+     * Reads either a bare <code>EMPTY</code> (returns true) or the tag of a member geometry, which must be
+     * of the expected type (returns false). A dimension tag of the member is taken over while the
+     * dimension of the multi geometry is not known, and must match it once it is.
+     */
+    private boolean readMemberTag(WKTGeometryType expected) throws IOException {
+        if (tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+            return true;
+        }
+        tokenizer.peek();
+        int typeStart = tokenizer.position();
+        if (tokenizer.readGeometryType() != expected) {
+            throw tokenizer.errorAt("Expected " + expected.getKeyword() + " member", typeStart);
+        }
+        WKTDimension memberDimension = tokenizer.readDimension();
+        if (dimension == null) {
+            dimension = memberDimension;
+        } else if (memberDimension != null && memberDimension != dimension) {
+            throw tokenizer.errorAt("Member dimension " + memberDimension + " differs from " + dimension, typeStart);
+        }
+        return false;
+    }
+
+    private boolean isPlanar() {
+        return dimension == null || dimension == WKTDimension.XY;
+    }
+
+    private Geometry emptyPoint() {
+        return isPlanar() ? new Point() : new PointZM(dimension.hasZ(), dimension.hasM());
+    }
+
+    private LineString emptyLineString() {
+        return isPlanar() ? new LineString() : new LineStringZM(dimension.hasZ(), dimension.hasM());
+    }
+
+    private Polygon emptyPolygon() {
+        return isPlanar() ? new Polygon() : new PolygonZM(dimension.hasZ(), dimension.hasM());
+    }
+
+    private Geometry readCoordinate() throws IOException {
+        numVertices++;
+        double x = tokenizer.readNumber();
+        double y = tokenizer.readNumber();
+        if (dimension == WKTDimension.XY) {
+            return new Point(x, y);
+        }
+        double z;
+        double m;
+        if (dimension == null) {
+            dimension = readFirstOrdinates();
+            z = firstZ;
+            m = firstM;
+        } else {
+            z = dimension.hasZ() ? tokenizer.readNumber() : Double.NaN;
+            m = dimension.hasM() ? tokenizer.readNumber() : Double.NaN;
+        }
+        switch (dimension) {
+            case XYZ:
+                return new PointZM(x, y, z);
+            case XYM:
+                return PointZM.withM(x, y, m);
+            case XYZM:
+                return new PointZM(x, y, z, m);
+            default:
+                return new Point(x, y);
+        }
+    }
+
+    private LineString readCoordinates() throws IOException {
+        tokenizer.expectOpenBracket();
+        coordinates.clear();
+        zValues.clear();
+        mValues.clear();
+        if (dimension == null && !readFirstVertex()) {
+            return toLineString();
+        }
+        if (dimension != WKTDimension.XY) {
+            return readCoordinatesZM();
+        }
+        do {
+            double x = tokenizer.readNumber();
+            double y = tokenizer.readNumber();
+            coordinates.add(x, y);
+        } while (tokenizer.nextElement());
+        return toLineString();
+    }
+
+    private LineString readCoordinatesZM() throws IOException {
+        boolean hasZ = dimension.hasZ();
+        boolean hasM = dimension.hasM();
+        do {
+            double x = tokenizer.readNumber();
+            double y = tokenizer.readNumber();
+            coordinates.add(x, y);
+            if (hasZ) {
+                zValues.add(tokenizer.readNumber());
+            }
+            if (hasM) {
+                mValues.add(tokenizer.readNumber());
+            }
+        } while (tokenizer.nextElement());
+        return toLineString();
+    }
+
+    /**
+     * Reads the first vertex of a sequence of unknown dimension, which decides the dimension, and returns
+     * whether more vertices follow.
+     */
+    private boolean readFirstVertex() throws IOException {
+        double x = tokenizer.readNumber();
+        double y = tokenizer.readNumber();
+        dimension = readFirstOrdinates();
+        coordinates.add(x, y);
+        if (dimension.hasZ()) {
+            zValues.add(firstZ);
+        }
+        if (dimension.hasM()) {
+            mValues.add(firstM);
+        }
+        return tokenizer.nextElement();
+    }
+
+    /**
+     * Reads the ordinates following x and y of the first vertex of an untagged geometry into firstZ and
+     * firstM, and returns the dimension their number implies: x y, x y z or x y z m.
+     */
+    private WKTDimension readFirstOrdinates() throws IOException {
+        firstZ = Double.NaN;
+        firstM = Double.NaN;
+        if (!tokenizer.isNumberNext()) {
+            return WKTDimension.XY;
+        }
+        firstZ = tokenizer.readNumber();
+        if (!tokenizer.isNumberNext()) {
+            return WKTDimension.XYZ;
+        }
+        firstM = tokenizer.readNumber();
+        return WKTDimension.XYZM;
+    }
+
+    private LineString toLineString() {
+        numVertices += coordinates.size() >> 1;
+        if (dimension == WKTDimension.XY) {
+            return new LineString(coordinates.toArray());
+        }
+        return new LineStringZM(coordinates.toArray(), dimension.hasZ() ? zValues.toArray() : null,
+                dimension.hasM() ? mValues.toArray() : null);
+    }
+
+    private void decodeGeometryText(WKTGeometryType type, WKTColumnarDecoder columns) throws IOException {
+        switch (type) {
+            case POINT:
+                tokenizer.expectOpenBracket();
+                decodeVertex(columns);
+                tokenizer.expectCloseBracket();
+                columns.endPart();
+                break;
+            case LINESTRING:
+                decodeRing(columns);
+                columns.endPart();
+                break;
+            case POLYGON:
+                if (decodePolygonText(columns)) {
+                    columns.endPart();
+                }
+                break;
+            case MULTIPOINT:
+                tokenizer.expectOpenBracket();
+                do {
+                    decodeMultiPointMember(columns);
+                    columns.endPart();
+                } while (tokenizer.nextElement());
+                break;
+            case MULTILINESTRING:
+                tokenizer.expectOpenBracket();
+                do {
+                    decodeLineStringMember(columns);
+                    columns.endPart();
+                } while (tokenizer.nextElement());
+                break;
+            case MULTIPOLYGON:
+                tokenizer.expectOpenBracket();
+                do {
+                    if (!tokenizer.isWordNext() || !(readMemberTag(WKTGeometryType.POLYGON) || tokenizer.tryKeyword(WKTTokenizer.EMPTY))) {
+                        decodePolygonText(columns);
+                    }
+                    columns.endPart();
+                } while (tokenizer.nextElement());
+                break;
+            default:
+                throw tokenizer.error(type.getKeyword() + " cannot be stored in a columnar batch");
+        }
+    }
+
+    private void decodeMultiPointMember(WKTColumnarDecoder columns) throws IOException {
+        if (tokenizer.isWordNext()) {
+            if (!readMemberTag(WKTGeometryType.POINT) && !tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+                tokenizer.expectOpenBracket();
+                decodeVertex(columns);
+                tokenizer.expectCloseBracket();
+            }
+        } else if (tokenizer.tryOpenBracket()) {
+            decodeVertex(columns);
+            tokenizer.expectCloseBracket();
+        } else {
+            decodeVertex(columns);
+        }
+    }
+
+    /**
+     * Decodes a linestring member or polygon hole, returns false if it is empty and no ring was added.
+     */
+    private boolean decodeLineStringMember(WKTColumnarDecoder columns) throws IOException {
+        if (tokenizer.isWordNext()) {
+            if (readMemberTag(WKTGeometryType.LINESTRING) || tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+                return false;
+            }
+        }
+        decodeRing(columns);
+        return true;
+    }
+
+    /**
+     * Decodes the rings of a polygon, returns false for the tagged empty form, which adds none.
+     */
+    private boolean decodePolygonText(WKTColumnarDecoder columns) throws IOException {
+        tokenizer.expectOpenBracket();
+        if (tokenizer.isWordNext()) {
+            if (!readMemberTag(WKTGeometryType.POLYGON)) {
+                tokenizer.expectKeyword(WKTTokenizer.EMPTY);
+            }
+            tokenizer.expectCloseBracket();
+            return false;
+        }
+        decodeRing(columns);
+        while (tokenizer.nextElement()) {
+            if (!decodeLineStringMember(columns)) {
+                columns.endRing();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Single vertex ring of a point.
+     */
+    private void decodeVertex(WKTColumnarDecoder columns) throws IOException {
+        double x = tokenizer.readNumber();
+        double y = tokenizer.readNumber();
+        columns.addVertex(x, y);
+        columns.endRing();
+    }
+
+    private void decodeRing(WKTColumnarDecoder columns) throws IOException {
+        tokenizer.expectOpenBracket();
+        do {
+            double x = tokenizer.readNumber();
+            double y = tokenizer.readNumber();
+            columns.addVertex(x, y);
+        } while (tokenizer.nextElement());
+        columns.endRing();
+    }
+
+    private WKTGeometryType scanGeometry() throws IOException {
+        WKTGeometryType type = tokenizer.readGeometryType();
+        WKTDimension outer = dimension;
+        dimension = tokenizer.readDimension();
+        if (tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+            dimension = outer;
+            return type;
+        }
+        switch (type) {
+            case POINT:
+                tokenizer.expectOpenBracket();
+                scanCoordinate();
+                tokenizer.expectCloseBracket();
+                break;
+            case LINESTRING:
+                scanCoordinates();
+                numParts++;
+                break;
+            case POLYGON:
+                scanPolygonText();
+                break;
+            case MULTIPOINT:
+                tokenizer.expectOpenBracket();
+                do {
+                    scanMultiPointMember();
+                } while (tokenizer.nextElement());
+                break;
+            case MULTILINESTRING:
+                tokenizer.expectOpenBracket();
+                do {
+                    scanLineStringMember(false);
+                } while (tokenizer.nextElement());
+                break;
+            case MULTIPOLYGON:
+                tokenizer.expectOpenBracket();
+                do {
+                    scanPolygonMember();
+                } while (tokenizer.nextElement());
+                break;
+            case GEOMETRYCOLLECTION:
+                tokenizer.expectOpenBracket();
+                do {
+                    scanGeometry();
+                } while (tokenizer.nextElement());
+                break;
+            default:
+                throw tokenizer.error("Unsupported geometry type " + type.getKeyword());
+        }
+        dimension = outer;
+        return type;
+    }
+
+    private void scanMultiPointMember() throws IOException {
+        if (tokenizer.isWordNext()) {
+            if (!readMemberTag(WKTGeometryType.POINT) && !tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+                tokenizer.expectOpenBracket();
+                scanCoordinate();
+                tokenizer.expectCloseBracket();
+            }
+        } else if (tokenizer.tryOpenBracket()) {
+            scanCoordinate();
+            tokenizer.expectCloseBracket();
+        } else {
+            scanCoordinate();
+        }
+    }
+
+    private void scanLineStringMember(boolean ring) throws IOException {
+        if (tokenizer.isWordNext()) {
+            if (readMemberTag(WKTGeometryType.LINESTRING) || tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+                return;
+            }
+        }
+        scanCoordinates();
+        if (ring) {
+            numRings++;
+        } else {
+            numParts++;
+        }
+    }
+
+    private void scanPolygonMember() throws IOException {
+        if (tokenizer.isWordNext()) {
+            if (readMemberTag(WKTGeometryType.POLYGON) || tokenizer.tryKeyword(WKTTokenizer.EMPTY)) {
+                return;
+            }
+        }
+        scanPolygonText();
+    }
+
+    private void scanPolygonText() throws IOException {
+        tokenizer.expectOpenBracket();
+        if (tokenizer.isWordNext()) {
+            if (!readMemberTag(WKTGeometryType.POLYGON)) {
+                tokenizer.expectKeyword(WKTTokenizer.EMPTY);
+            }
+            tokenizer.expectCloseBracket();
+            return;
+        }
+        scanCoordinates();
+        numRings++;
+        while (tokenizer.nextElement()) {
+            scanLineStringMember(true);
+        }
+        numParts++;
+    }
+
+    private void scanCoordinate() throws IOException {
+        scanVertex();
+        numParts++;
+    }
+
+    private void scanCoordinates() throws IOException {
+        tokenizer.expectOpenBracket();
+        do {
+            scanVertex();
+        } while (tokenizer.nextElement());
+    }
+
+    private void scanVertex() throws IOException {
+        double x = tokenizer.readNumber();
+        double y = tokenizer.readNumber();
+        if (dimension == null) {
+            dimension = readFirstOrdinates();
+        } else {
+            for (int i = dimension.extraOrdinates(); i > 0; i--) {
+                tokenizer.readNumber();
+            }
+        }
+        addVertex(x, y);
+    }
+
+    private void addVertex(double x, double y) {
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+        numVertices++;
+    }
+}
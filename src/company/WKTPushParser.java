@@ -0,0 +1,473 @@
+package company;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Incremental WKT parser that is fed the input in chunks of any size and reports its content to a
+ * {@link WKTEventHandler} as soon as it has been read, e.g. from a non-blocking channel:
+ * <pre><code>
+ * WKTPushParser parser = new WKTPushParser(handler);
+ * while (channel.read(buffer) &gt;= 0) {
+ *     buffer.flip();
+ *     parser.feed(buffer);
+ *     buffer.clear();
+ * }
+ * parser.finish();
+ * </code></pre>
+ * Neither the input nor the geometry is held; the parser keeps only the bracket nesting and, when a chunk
+ * ends in the middle of a number or keyword, the start of that token. Nesting is tracked on the heap, so
+ * deeply nested collections cannot overflow the stack.
+ * <p>
+ * Only 2D WKT is read, since {@link WKTEventHandler#coordinate(double, double)} reports x and y only: z and
+ * m ordinates, tagged or not, and EWKT <code>SRID=n;</code> prefixes, all of which {@link WKTReader}
+ * accepts, are rejected with a {@link WKTParseException} that says so. Otherwise the input is checked as
+ * strictly as by {@link WKTReader}, except that polygon rings are not required to be closed. Events already
+ * delivered are not taken back when a later part of the input turns out to be invalid. After an error,
+ * {@link #reset()} must be called before parsing the next geometry.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class WKTPushParser {
+
+    private static final char OPEN_BRACKET = '(';
+    private static final char CLOSE_BRACKET = ')';
+    private static final char COMMA = ',';
+    private static final int MAX_TOKEN_LENGTH = 1024;
+    private static final String UNSUPPORTED = ", z and m ordinates and SRID prefixes are not supported by the push parser";
+    private static final WKTDimension[] TAGGED_DIMENSIONS = {WKTDimension.XYZM, WKTDimension.XYZ, WKTDimension.XYM};
+
+    /*
+     * What the parser expects next.
+     */
+    private static final int TYPE = 0;
+    private static final int BODY = 1;
+    private static final int X = 2;
+    private static final int Y = 3;
+    private static final int SEPARATOR = 4;
+    private static final int CLOSE = 5;
+    private static final int MEMBER = 6;
+    private static final int FIRST_RING = 7;
+    private static final int RING = 8;
+    private static final int RING_BODY = 9;
+    private static final int EMPTY_POLYGON = 10;
+    private static final int END = 11;
+
+    /*
+     * What an open bracket encloses, combined with ENDS_GEOMETRY if closing it completes a geometry.
+     */
+    private static final int POINT_FRAME = 0;
+    private static final int SEQUENCE_FRAME = 1;
+    private static final int POLYGON_FRAME = 2;
+    private static final int MULTIPOINT_FRAME = 3;
+    private static final int MULTILINESTRING_FRAME = 4;
+    private static final int MULTIPOLYGON_FRAME = 5;
+    private static final int COLLECTION_FRAME = 6;
+    private static final int ENDS_GEOMETRY = 8;
+
+    private final WKTEventHandler handler;
+    private final WKTTokenizer numbers = new WKTTokenizer();
+    private final StringBuilder pendingToken = new StringBuilder();
+    private int[] frames = new int[16];
+    private int depth;
+    private int state = TYPE;
+    private WKTGeometryType bodyType;
+    private double x;
+    private boolean inToken;
+    private long offset;
+    private long position;
+    private int line = 1;
+    private long lineStart;
+
+    public WKTPushParser(WKTEventHandler handler) {
+        this.handler = handler;
+    }
+
+    public void feed(CharSequence chunk) throws IOException {
+        feed(chunk, 0, chunk.length());
+    }
+
+    public void feed(char[] chunk, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || length > chunk.length - offset) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + chunk.length);
+        }
+        feed(CharBuffer.wrap(chunk), offset, offset + length);
+    }
+
+    /**
+     * Parses the remaining ASCII encoded bytes of the buffer and moves its position to the limit.
+     */
+    public void feed(ByteBuffer chunk) throws IOException {
+        feed(new AsciiCharSequence(chunk), 0, chunk.remaining());
+        chunk.position(chunk.limit());
+    }
+
+    /**
+     * Parses the characters between start (inclusive) and end (exclusive) of the chunk.
+     */
+    public void feed(CharSequence chunk, int start, int end) throws IOException {
+        int tokenStart = inToken ? start : -1;
+        for (int i = start; i < end; i++) {
+            char c = chunk.charAt(i);
+            boolean bracketOrComma = c == OPEN_BRACKET || c == CLOSE_BRACKET || c == COMMA;
+            if (!bracketOrComma && !Character.isWhitespace(c)) {
+                if (tokenStart < 0) {
+                    tokenStart = i;
+                }
+                continue;
+            }
+            position = offset + i - start;
+            if (tokenStart >= 0) {
+                completeToken(chunk, tokenStart, i);
+                tokenStart = -1;
+            }
+            if (c == '\n') {
+                line++;
+                lineStart = position + 1;
+            }
+            if (c == OPEN_BRACKET) {
+                onOpenBracket();
+            } else if (c == CLOSE_BRACKET) {
+                onCloseBracket();
+            } else if (c == COMMA) {
+                onComma();
+            }
+        }
+        if (tokenStart >= 0) {
+            pendingToken.append(chunk, tokenStart, end);
+            inToken = true;
+            if (pendingToken.length() > MAX_TOKEN_LENGTH) {
+                position = offset + tokenStart - start;
+                throw error("Token longer than " + MAX_TOKEN_LENGTH + " characters");
+            }
+        }
+        offset += end - start;
+    }
+
+    /**
+     * Signals the end of the input, which must have contained exactly one geometry, and prepares the parser
+     * for the next one.
+     */
+    public void finish() throws IOException {
+        position = offset;
+        if (inToken) {
+            completeToken(pendingToken, 0, 0);
+        }
+        if (state != END) {
+            throw error("Unexpected end of input");
+        }
+        reset();
+    }
+
+    /**
+     * Discards the state of the current input.
+     */
+    public void reset() {
+        pendingToken.setLength(0);
+        inToken = false;
+        depth = 0;
+        state = TYPE;
+        offset = 0;
+        line = 1;
+        lineStart = 0;
+    }
+
+    private void completeToken(CharSequence chunk, int start, int end) throws IOException {
+        if (inToken) {
+            pendingToken.append(chunk, start, end);
+            inToken = false;
+            onToken(pendingToken, 0, pendingToken.length());
+            pendingToken.setLength(0);
+        } else {
+            onToken(chunk, start, end);
+        }
+    }
+
+    private void onToken(CharSequence token, int start, int end) throws IOException {
+        char c = token.charAt(start);
+        if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+            onWord(token, start, end);
+        } else {
+            onNumber(parseNumber(token, start, end));
+        }
+    }
+
+    private double parseNumber(CharSequence token, int start, int end) throws IOException {
+        numbers.reset(token, start, end);
+        try {
+            double value = numbers.readNumber();
+            numbers.expectEnd();
+            return value;
+        } catch (IOException e) {
+            throw unexpected(token, start, end);
+        } finally {
+            numbers.reset(null, 0, 0);
+        }
+    }
+
+    private void onWord(CharSequence token, int start, int end) throws IOException {
+        boolean empty = WKTTokenizer.regionMatches(token, start, end, WKTTokenizer.EMPTY);
+        switch (state) {
+            case TYPE:
+                WKTGeometryType type = WKTGeometryType.forKeyword(token, start, end);
+                if (type == null) {
+                    throw unexpectedWord(token, start, end);
+                }
+                handler.startGeometry(type.getKeyword());
+                bodyType = type;
+                state = BODY;
+                return;
+            case BODY:
+                if (empty) {
+                    handler.endGeometry();
+                    afterGeometry();
+                    return;
+                }
+                break;
+            case MEMBER:
+                WKTGeometryType memberType = memberType();
+                if (empty) {
+                    handler.startGeometry(memberType.getKeyword());
+                    handler.endGeometry();
+                    state = SEPARATOR;
+                    return;
+                }
+                if (WKTTokenizer.regionMatches(token, start, end, memberType.getKeyword())) {
+                    handler.startGeometry(memberType.getKeyword());
+                    bodyType = memberType;
+                    state = BODY;
+                    return;
+                }
+                break;
+            case FIRST_RING:
+                if (empty) {
+                    state = CLOSE;
+                    return;
+                }
+                if (WKTTokenizer.regionMatches(token, start, end, WKTGeometryType.POLYGON.getKeyword())) {
+                    state = EMPTY_POLYGON;
+                    return;
+                }
+                break;
+            case EMPTY_POLYGON:
+                if (empty) {
+                    state = CLOSE;
+                    return;
+                }
+                break;
+            case RING:
+                if (WKTTokenizer.regionMatches(token, start, end, WKTGeometryType.LINESTRING.getKeyword())) {
+                    state = RING_BODY;
+                    return;
+                }
+                if (empty) {
+                    emptyRing();
+                    return;
+                }
+                break;
+            case RING_BODY:
+                if (empty) {
+                    emptyRing();
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        throw unexpectedWord(token, start, end);
+    }
+
+    private void emptyRing() throws IOException {
+        handler.startRing();
+        handler.endRing();
+        state = SEPARATOR;
+    }
+
+    private void onNumber(double value) throws IOException {
+        switch (state) {
+            case MEMBER:
+                if ((frames[depth - 1] & ~ENDS_GEOMETRY) != MULTIPOINT_FRAME) {
+                    break;
+                }
+                // an untagged point of a multipoint, e.g. MULTIPOINT (1 2, 3 4)
+                handler.startGeometry(WKTGeometryType.POINT.getKeyword());
+                x = value;
+                state = Y;
+                return;
+            case X:
+                x = value;
+                state = Y;
+                return;
+            case Y:
+                handler.coordinate(x, value);
+                int frame = frames[depth - 1] & ~ENDS_GEOMETRY;
+                if (frame == POINT_FRAME) {
+                    state = CLOSE;
+                } else {
+                    if (frame == MULTIPOINT_FRAME) {
+                        handler.endGeometry();
+                    }
+                    state = SEPARATOR;
+                }
+                return;
+            case CLOSE:
+            case SEPARATOR:
+                // a third ordinate follows x and y
+                throw error("Unexpected number " + value + UNSUPPORTED);
+            default:
+                break;
+        }
+        throw error("Unexpected number " + value);
+    }
+
+    private void onOpenBracket() throws IOException {
+        switch (state) {
+            case BODY:
+                openBody(bodyType);
+                return;
+            case MEMBER:
+                WKTGeometryType memberType = memberType();
+                handler.startGeometry(memberType.getKeyword());
+                openBody(memberType);
+                return;
+            case FIRST_RING:
+            case RING:
+            case RING_BODY:
+                handler.startRing();
+                push(SEQUENCE_FRAME);
+                state = X;
+                return;
+            default:
+                throw unexpected(OPEN_BRACKET);
+        }
+    }
+
+    private void openBody(WKTGeometryType type) throws IOException {
+        switch (type) {
+            case POINT:
+                push(POINT_FRAME | ENDS_GEOMETRY);
+                state = X;
+                break;
+            case LINESTRING:
+                handler.startRing();
+                push(SEQUENCE_FRAME | ENDS_GEOMETRY);
+                state = X;
+                break;
+            case POLYGON:
+                push(POLYGON_FRAME | ENDS_GEOMETRY);
+                state = FIRST_RING;
+                break;
+            case MULTIPOINT:
+                push(MULTIPOINT_FRAME | ENDS_GEOMETRY);
+                state = MEMBER;
+                break;
+            case MULTILINESTRING:
+                push(MULTILINESTRING_FRAME | ENDS_GEOMETRY);
+                state = MEMBER;
+                break;
+            case MULTIPOLYGON:
+                push(MULTIPOLYGON_FRAME | ENDS_GEOMETRY);
+                state = MEMBER;
+                break;
+            default:
+                push(COLLECTION_FRAME | ENDS_GEOMETRY);
+                state = TYPE;
+                break;
+        }
+    }
+
+    private void onComma() throws IOException {
+        if (state != SEPARATOR) {
+            throw unexpected(COMMA);
+        }
+        switch (frames[depth - 1] & ~ENDS_GEOMETRY) {
+            case SEQUENCE_FRAME:
+                state = X;
+                break;
+            case POLYGON_FRAME:
+                state = RING;
+                break;
+            case COLLECTION_FRAME:
+                state = TYPE;
+                break;
+            case POINT_FRAME:
+                throw unexpected(COMMA);
+            default:
+                state = MEMBER;
+                break;
+        }
+    }
+
+    private void onCloseBracket() throws IOException {
+        if (state != SEPARATOR && state != CLOSE) {
+            throw unexpected(CLOSE_BRACKET);
+        }
+        int frame = frames[--depth];
+        if ((frame & ~ENDS_GEOMETRY) == SEQUENCE_FRAME) {
+            handler.endRing();
+        }
+        if ((frame & ENDS_GEOMETRY) != 0) {
+            handler.endGeometry();
+        }
+        afterGeometry();
+    }
+
+    private void afterGeometry() {
+        state = depth == 0 ? END : SEPARATOR;
+    }
+
+    private WKTGeometryType memberType() {
+        switch (frames[depth - 1] & ~ENDS_GEOMETRY) {
+            case MULTIPOINT_FRAME:
+                return WKTGeometryType.POINT;
+            case MULTILINESTRING_FRAME:
+                return WKTGeometryType.LINESTRING;
+            default:
+                return WKTGeometryType.POLYGON;
+        }
+    }
+
+    private void push(int frame) {
+        if (depth == frames.length) {
+            frames = Arrays.copyOf(frames, depth << 1);
+        }
+        frames[depth++] = frame;
+    }
+
+    private WKTParseException unexpected(char c) {
+        return error("Unexpected '" + c + "'");
+    }
+
+    private WKTParseException unexpected(CharSequence token, int start, int end) {
+        return error("Unexpected '" + token.subSequence(start, end) + "'");
+    }
+
+    /**
+     * Unexpected word, which is named as unsupported if it is an SRID prefix or a dimension tag, on its own
+     * or as the suffix of a geometry type.
+     */
+    private WKTParseException unexpectedWord(CharSequence token, int start, int end) {
+        String srid = WKTTokenizer.SRID;
+        if (end - start > srid.length() && WKTTokenizer.regionMatches(token, start, start + srid.length(), srid)) {
+            return error("Unexpected '" + token.subSequence(start, end) + "'" + UNSUPPORTED);
+        }
+        for (WKTDimension dimension : TAGGED_DIMENSIONS) {
+            int tagStart = end - dimension.getTag().length();
+            if (tagStart >= start && WKTTokenizer.regionMatches(token, tagStart, end, dimension.getTag())
+                    && (tagStart == start || WKTGeometryType.forKeyword(token, start, tagStart) != null)) {
+                return error("Unexpected '" + token.subSequence(start, end) + "'" + UNSUPPORTED);
+            }
+        }
+        return unexpected(token, start, end);
+    }
+
+    /**
+     * Error at the current position; a token is reported at the character following it.
+     */
+    private WKTParseException error(String message) {
+        int column = (int) (position - lineStart + 1);
+        return new WKTParseException(message + " at line " + line + ", column " + column, position, line, column);
+    }
+}
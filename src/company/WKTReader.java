@@ -1,26 +1,44 @@
 package company;
 
-import com.sinergise.geometry.*;
+import com.sinergise.geometry.Geometry;
+import com.sinergise.geometry.LineString;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parses WKT into Geometry objects.
+ * <p>
+ * Instances are stateless and thread-safe; one reader can be shared by any number of threads. The
+ * scratch state of a parse (cursor, coordinate buffer) is kept per thread and reused, so concurrent
+ * calls neither contend nor allocate it again.
+ * <p>
+ * Parsed records can be reported to a {@link WKTMetrics} listener, which is off by default.
+ */
 public class WKTReader {
 
-    private static final String EMPTY = "EMPTY";
-    private static final String GEOMETRYCOLLECTION = "GEOMETRYCOLLECTION";
-    private static final String LINESTRING = "LINESTRING";
-    private static final String MULTILINESTRING = "MULTILINESTRING";
-    private static final String MULTIPOINT = "MULTIPOINT";
-    private static final String MULTIPOLYGON = "MULTIPOLYGON";
-    private static final String POINT = "POINT";
-    private static final String POLYGON = "POLYGON";
-    private static final char OPEN_BRACKET = '(';
-    private static final char CLOSE_BRACKET = ')';
-    private static final String COMMA = ",";
-    private static final String EMPTY_CHAR = " ";
+    private final WKTMetrics metrics;
+
+    public WKTReader() {
+        this(WKTMetrics.NONE);
+    }
+
+    /**
+     * Reader that reports every geometry it parses to the listener, including those of
+     * {@link WKTLazyGeometry#getGeometry()}. {@link #readEnvelope} and the scan of {@link #readLazy} build
+     * no geometry and are not reported.
+     */
+    public WKTReader(WKTMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     /**
      * Transforms the input WKT-formatted String into Geometry object
@@ -32,191 +50,170 @@ public class WKTReader {
      */
 
     public Geometry read(String wktString) throws IOException {
-
-        wktString = wktString.trim();
-        String objectPart = wktString.substring(0, wktString.indexOf(EMPTY_CHAR));
-        String paramPart = wktString.substring(wktString.indexOf(EMPTY_CHAR) + 1);
-
-        switch (objectPart) {
-            case GEOMETRYCOLLECTION: {
-                return createGeometryCollectionObject(paramPart);
-            }
-            case LINESTRING: {
-                return createLineStringObject(paramPart);
-            }
-            case MULTILINESTRING: {
-                return createMultiLineStringObject(paramPart);
-            }
-            case MULTIPOINT: {
-                return createMultiPointObject(paramPart);
-            }
-            case MULTIPOLYGON: {
-                return createMultiPolygonObject(paramPart);
-            }
-            case POINT: {
-                return createPointObject(paramPart);
-            }
-            case POLYGON: {
-                return createPolygonObject(paramPart);
-            }
-            default:
-                throw new IOException("String is not in correct format");
-        }
+        return read((CharSequence) wktString);
     }
 
-    private Polygon createPolygonObject(String paramPart) {
-        if ("EMPTY".equals(paramPart))
-            return new Polygon();
-
-        paramPart = paramPart.substring(1, paramPart.length() - 1);
-        if ("POLYGON EMPTY".equals(paramPart)) {
-            return new Polygon();
-        }
-
-        String[] stringElements = split(paramPart);
-        LineString outer = createLineStringObject(stringElements[0]);
-        LineString[] holes = null;
+    /**
+     * Same as {@link #read(String)} for any character sequence, e.g. a reused StringBuilder.
+     */
+    public Geometry read(CharSequence wkt) throws IOException {
+        return readRecord(wkt, 0, wkt.length());
+    }
 
-        if (stringElements.length > 1) {
-            holes = new LineString[stringElements.length - 1];
-            for (int i = 1; i < stringElements.length; i++) {
-                holes[i - 1] = createLineStringObject(stringElements[i]);
-            }
+    /**
+     * Parses ASCII (or UTF-8, which is the same for valid WKT) encoded WKT directly from the given slice of
+     * the array, without decoding it to a String.
+     */
+    public Geometry read(byte[] wkt, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || length > wkt.length - offset) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + wkt.length);
         }
-        return new Polygon(outer, holes);
+        return read(new AsciiCharSequence(ByteBuffer.wrap(wkt), offset, length));
     }
 
-    private LineString createLineStringObject(String paramPart) {
-        paramPart = paramPart.trim();
-        if ("LINESTRING EMPTY".equals(paramPart) || "EMPTY".equals(paramPart)) {
-            return new LineString();
-        }
+    /**
+     * Parses ASCII encoded WKT from the remaining bytes of a heap or direct buffer, without decoding or
+     * copying them. The position of the buffer is not changed.
+     */
+    public Geometry read(ByteBuffer wkt) throws IOException {
+        return read(new AsciiCharSequence(wkt));
+    }
 
-        if (paramPart.charAt(0) == OPEN_BRACKET) {
-            paramPart = paramPart.substring(1);
-        }
-        if (paramPart.charAt(paramPart.length() - 1) == CLOSE_BRACKET) {
-            paramPart = paramPart.substring(0, paramPart.length() - 1);
+    /**
+     * Parses one whole record, reporting it to the metrics listener if there is one. Internal callers
+     * parsing parts of a record use {@link #read(CharSequence, int, int, long[])} so that nothing is
+     * counted twice.
+     */
+    final Geometry readRecord(CharSequence input, int start, int end) throws IOException {
+        if (metrics == WKTMetrics.NONE) {
+            return read(input, start, end, null);
         }
-        paramPart = paramPart.replaceAll(",", "");
-        String[] stringElements = paramPart.split(" ");
-        List<Double> coords = new ArrayList<>();
-        for (String element : stringElements) {
-            element = element.trim();
-            coords.add(Double.parseDouble(element));
+        long started = System.nanoTime();
+        try {
+            long[] vertices = new long[1];
+            Geometry geometry = read(input, start, end, vertices);
+            metrics.geometryRead(geometry, end - start, vertices[0], System.nanoTime() - started);
+            return geometry;
+        } catch (IOException | RuntimeException e) {
+            metrics.readFailed(e);
+            throw e;
         }
-        return new LineString(coords.stream().mapToDouble(Double::doubleValue).toArray());
     }
 
-
-    private Geometry createMultiLineStringObject(String paramPart) throws IOException {
-        if (paramPart.equals(EMPTY)) return new MultiLineString();
-        paramPart = paramPart.substring(1, paramPart.length() - 1);
-        paramPart = checkNumberOfLineStrings(paramPart);
-        List<LineString> lineStringsList = new ArrayList<>();
-        if ("LINESTRING".equals(paramPart.split(" ")[0])) {
-            lineStringsList.add((LineString) read(paramPart));
-
-        } else {
-            String[] parts = paramPart.split(COMMA);
-            for (String part : parts) {
-                part = part.trim();
-                lineStringsList.add(createLineStringObject(part));
+    /**
+     * Parses the WKT between start (inclusive) and end (exclusive) of the input, adding the number of its
+     * vertices to vertices[0] unless the array is null. The array belongs to the calling thread.
+     */
+    Geometry read(CharSequence input, int start, int end, long[] vertices) throws IOException {
+        WKTParser parser = WKTParser.SCRATCH.acquire();
+        try {
+            Geometry geometry = parser.parse(input, start, end);
+            if (vertices != null) {
+                vertices[0] += parser.getNumVertices();
             }
+            return geometry;
+        } finally {
+            WKTParser.SCRATCH.release(parser);
         }
-        return new MultiLineString(lineStringsList.toArray(new LineString[lineStringsList.size()]));
     }
 
-    private String checkNumberOfLineStrings(String paramPart) {
-
-        StringBuilder stringBuilder = new StringBuilder(paramPart);
-
-        boolean closed = true;
-
-        for (int i = 0; i < stringBuilder.length(); i++) {
-            if (stringBuilder.charAt(i) == '(') {
-                closed = false;
-            }
-            if (stringBuilder.charAt(i) == ')') {
-                closed = true;
-            }
-            if (stringBuilder.charAt(i) == ',' && !closed) {
-                stringBuilder.deleteCharAt(i);
-
-            }
-        }
-
-        return stringBuilder.toString();
-
+    /**
+     * Scans the structure of the WKT without parsing any coordinates. Type, element counts and the
+     * coordinate sequences are available right away, the geometry is only built on first access, see
+     * {@link WKTLazyGeometry}. The input must not change while the returned handle is in use.
+     */
+    public WKTLazyGeometry readLazy(CharSequence wkt) throws IOException {
+        return WKTLazyGeometry.scan(this, wkt, 0, wkt.length());
     }
 
+    /**
+     * Computes the bounding box and element counts of the WKT in one pass, without building the geometry.
+     * The input is checked as strictly as by {@link #read(CharSequence)}, except that polygon rings are not
+     * required to be closed.
+     */
+    public WKTEnvelope readEnvelope(CharSequence wkt) throws IOException {
+        return readEnvelope(wkt, 0, wkt.length());
+    }
 
-    private Geometry createMultiPointObject(String paramPart) throws IOException {
-        if (paramPart.equals(EMPTY)) return new MultiPoint();
-        paramPart = paramPart.substring(1, paramPart.length() - 1);
-        List<Point> pointsList = new ArrayList<>();
-        String[] parts = paramPart.split(COMMA);
-        for (String part : parts) {
-            part = part.trim();
-            if (part.equals("POINT EMPTY")) {
-                pointsList.add(new Point());
-            } else {
-                pointsList.add(createPointObject(part));
-            }
+    /**
+     * Same as {@link #readEnvelope(CharSequence)} for ASCII encoded WKT in the given slice of the array.
+     */
+    public WKTEnvelope readEnvelope(byte[] wkt, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || length > wkt.length - offset) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + wkt.length);
         }
-        return new MultiPoint(pointsList.toArray(new Point[pointsList.size()]));
+        return readEnvelope(new AsciiCharSequence(ByteBuffer.wrap(wkt), offset, length));
     }
 
-    private Geometry createGeometryCollectionObject(String paramPart) throws IOException {
-        if (paramPart.equals(EMPTY)) return new GeometryCollection<>();
-        List<Geometry> elements = new ArrayList<>();
-        paramPart = paramPart.substring(1, paramPart.length() - 1);
-        String[] stringElements = split(paramPart);
-        for (String element : stringElements) {
-            elements.add(read(element));
+    WKTEnvelope readEnvelope(CharSequence input, int start, int end) throws IOException {
+        WKTParser parser = WKTParser.SCRATCH.acquire();
+        try {
+            return parser.scanEnvelope(input, start, end);
+        } finally {
+            WKTParser.SCRATCH.release(parser);
         }
-        return new GeometryCollection<>(elements);
     }
 
-    private Geometry createMultiPolygonObject(String paramPart) {
-        if (paramPart.equals(EMPTY)) return new MultiPolygon();
-        paramPart = paramPart.substring(1, paramPart.length() - 1);
-        String[] stringElements = split(paramPart);
-        Polygon[] polygons = new Polygon[stringElements.length];
-        for (int i = 0; i < stringElements.length; i++) {
-            polygons[i] = createPolygonObject(stringElements[i].trim());
+    /**
+     * Parses the bracketed coordinate sequence between start (inclusive) and end (exclusive) of the input,
+     * of the given dimension or, if null, of the dimension of its first vertex.
+     */
+    LineString readCoordinates(CharSequence input, int start, int end, WKTDimension dimension) throws IOException {
+        WKTParser parser = WKTParser.SCRATCH.acquire();
+        try {
+            return parser.parseCoordinates(input, start, end, dimension);
+        } finally {
+            WKTParser.SCRATCH.release(parser);
         }
-
-        return new MultiPolygon(polygons);
     }
 
-    private Point createPointObject(String paramPart) {
-        if (paramPart.equals(EMPTY)) {
-            return new Point();
-        }
-        if (paramPart.charAt(0) == OPEN_BRACKET && paramPart.charAt(paramPart.length() - 1) == CLOSE_BRACKET) {
-            paramPart = paramPart.substring(1, paramPart.length() - 1);
+    /**
+     * Parses one member of a multi geometry between start (inclusive) and end (exclusive) of the input, of
+     * the given dimension or, if null, of the dimension of its first vertex, adding the number of its
+     * vertices to the counter.
+     */
+    Geometry readMember(WKTGeometryType container, CharSequence input, int start, int end, WKTDimension dimension,
+                        LongAdder vertices) throws IOException {
+        WKTParser parser = WKTParser.SCRATCH.acquire();
+        try {
+            Geometry member = parser.parseMember(container, input, start, end, dimension);
+            vertices.add(parser.getNumVertices());
+            return member;
+        } finally {
+            WKTParser.SCRATCH.release(parser);
         }
-        String[] stringElements = paramPart.split(EMPTY_CHAR);
-        return new Point(Double.parseDouble(stringElements[0].trim()), Double.parseDouble(stringElements[1].trim()));
     }
 
-
-    private String[] split(String string) {
-        int lastIndex = 0;
-        int level = 0;
-        List<String> result = new LinkedList<>();
-        for (int i = 0; i < string.length(); i++) {
-            if (string.charAt(i) == OPEN_BRACKET) level++;
-            if (string.charAt(i) == CLOSE_BRACKET) level--;
-            if (string.charAt(i) == ',' && level == 0) {
-                result.add(string.substring(lastIndex, i));
-                lastIndex = i + 1;
+    /**
+     * Returns a lazily populated stream of the newline or semicolon separated records read from the input.
+     * Parse and I/O errors are rethrown as {@link UncheckedIOException}; closing the stream closes the input.
+     *
+     * @see WKTStreamReader
+     */
+    public Stream<Geometry> stream(Reader in) {
+        WKTStreamReader records = new WKTStreamReader(in, this);
+        Spliterator<Geometry> spliterator = new Spliterators.AbstractSpliterator<Geometry>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Geometry> action) {
+                try {
+                    Geometry geometry = records.read();
+                    if (geometry == null) {
+                        return false;
+                    }
+                    action.accept(geometry);
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
             }
-        }
-        result.add(string.substring(lastIndex, string.length()));
-        return result.toArray(new String[result.size()]);
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                records.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
-
-
 }
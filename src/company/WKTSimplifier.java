@@ -0,0 +1,206 @@
+package company;
+
+import com.sinergise.geometry.LineString;
+
+import java.util.Arrays;
+
+/**
+ * Picks the vertices of a linestring or ring that a {@link WKTWriter} writes when its config
+ * {@link WKTWriterConfig#simplifies() simplifies}: first consecutive vertices that are equal as written are
+ * dropped, then Douglas-Peucker removes vertices within the tolerance of the simplified line. Only the
+ * indices of the kept vertices are collected, the geometry is not copied.
+ * <p>
+ * The first and last vertex are always kept, so closed rings stay closed. A line that collapses to a single
+ * point keeps its two end points. A ring that would be left with fewer than 4 vertices falls back to the
+ * previous step and at last to all vertices. Like plain Douglas-Peucker this does not prevent the
+ * simplified rings from intersecting.
+ */
+final class WKTSimplifier {
+
+    static final ThreadLocalScratch<WKTSimplifier> SCRATCH = new ThreadLocalScratch<>(WKTSimplifier::new);
+
+    private static final int MIN_RING_VERTICES = 4;
+    private static final int MIN_LINE_VERTICES = 2;
+
+    private LineString line;
+    private WKTColumnarBatch batch;
+    private int[] kept = new int[16];
+    private int numKept;
+    private int[] simplified = new int[16];
+    private int[] stack = new int[32];
+
+    /**
+     * Selects the vertices of the line and returns their number; {@link #index(int)} gives each.
+     */
+    int simplify(LineString line, boolean ring, WKTWriterConfig config) {
+        this.line = line;
+        this.batch = null;
+        return simplify(0, line.getNumCoords(), ring, config);
+    }
+
+    /**
+     * Selects from the vertices from to end (exclusive) of the batch.
+     */
+    int simplify(WKTColumnarBatch batch, int from, int end, boolean ring, WKTWriterConfig config) {
+        this.line = null;
+        this.batch = batch;
+        return simplify(from, end, ring, config);
+    }
+
+    /**
+     * Vertex index of the k-th selected vertex.
+     */
+    int index(int k) {
+        return kept[k];
+    }
+
+    /**
+     * Drops the reference to the last simplified geometry.
+     */
+    void release() {
+        line = null;
+        batch = null;
+    }
+
+    private int simplify(int from, int end, boolean ring, WKTWriterConfig config) {
+        int count = end - from;
+        if (kept.length < count) {
+            kept = new int[count];
+        }
+        int minimum = Math.min(ring ? MIN_RING_VERTICES : MIN_LINE_VERTICES, count);
+        if (config.isRemoveDuplicates()) {
+            removeDuplicates(from, end, config.getDecimalPlaces());
+            if (numKept < minimum && ring) {
+                keepAll(from, end);
+            } else if (numKept < minimum) {
+                kept[0] = from;
+                kept[1] = end - 1;
+                numKept = 2;
+            }
+        } else {
+            keepAll(from, end);
+        }
+        if (config.getSimplifyTolerance() > 0 && numKept > 2) {
+            douglasPeucker(config.getSimplifyTolerance(), minimum);
+        }
+        return numKept;
+    }
+
+    private void keepAll(int from, int end) {
+        numKept = 0;
+        for (int i = from; i < end; i++) {
+            kept[numKept++] = i;
+        }
+    }
+
+    /**
+     * Keeps a vertex if it differs from the last kept one after rounding to the written precision. The
+     * last vertex replaces an equal predecessor instead of being dropped, to keep the end point.
+     */
+    private void removeDuplicates(int from, int end, int decimalPlaces) {
+        numKept = 0;
+        double lastX = 0;
+        double lastY = 0;
+        for (int i = from; i < end; i++) {
+            double x = decimalPlaces < 0 ? x(i) : DoubleFormatter.round(x(i), decimalPlaces);
+            double y = decimalPlaces < 0 ? y(i) : DoubleFormatter.round(y(i), decimalPlaces);
+            if (numKept > 0 && x == lastX && y == lastY) {
+                if (i == end - 1) {
+                    kept[numKept - 1] = i;
+                }
+                continue;
+            }
+            kept[numKept++] = i;
+            lastX = x;
+            lastY = y;
+        }
+    }
+
+    /**
+     * Iterative Douglas-Peucker over the kept vertices, keeping the result only if it has at least the
+     * minimum number of vertices.
+     */
+    private void douglasPeucker(double tolerance, int minimum) {
+        if (simplified.length < numKept) {
+            simplified = new int[kept.length];
+        }
+        // simplified doubles as the mark array: 1 for every kept vertex, before being compacted
+        Arrays.fill(simplified, 0, numKept, 0);
+        simplified[0] = 1;
+        simplified[numKept - 1] = 1;
+        double squaredTolerance = tolerance * tolerance;
+        int top = 0;
+        stack = push(stack, top, 0, numKept - 1);
+        top += 2;
+        while (top > 0) {
+            top -= 2;
+            int first = stack[top];
+            int last = stack[top + 1];
+            int farthest = -1;
+            double maxDistance = squaredTolerance;
+            for (int k = first + 1; k < last; k++) {
+                double distance = squaredSegmentDistance(kept[k], kept[first], kept[last]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = k;
+                }
+            }
+            if (farthest >= 0) {
+                simplified[farthest] = 1;
+                stack = push(stack, top, first, farthest);
+                top += 2;
+                stack = push(stack, top, farthest, last);
+                top += 2;
+            }
+        }
+        int count = 0;
+        for (int k = 0; k < numKept; k++) {
+            if (simplified[k] != 0) {
+                simplified[count++] = kept[k];
+            }
+        }
+        if (count >= minimum) {
+            int[] swap = kept;
+            kept = simplified;
+            simplified = swap;
+            numKept = count;
+        }
+    }
+
+    private static int[] push(int[] stack, int top, int first, int last) {
+        if (top + 2 > stack.length) {
+            stack = Arrays.copyOf(stack, stack.length << 1);
+        }
+        stack[top] = first;
+        stack[top + 1] = last;
+        return stack;
+    }
+
+    /**
+     * Squared distance of vertex i from the segment a b, or from a if the segment is degenerate as for
+     * the first and last vertex of a closed ring.
+     */
+    private double squaredSegmentDistance(int i, int a, int b) {
+        double ax = x(a);
+        double ay = y(a);
+        double dx = x(b) - ax;
+        double dy = y(b) - ay;
+        double px = x(i) - ax;
+        double py = y(i) - ay;
+        double length = dx * dx + dy * dy;
+        if (length > 0) {
+            double t = Math.max(0, Math.min(1, (px * dx + py * dy) / length));
+            px -= t * dx;
+            py -= t * dy;
+        }
+        return px * px + py * py;
+    }
+
+    private double x(int i) {
+        return line != null ? line.getX(i) : batch.getX(i);
+    }
+
+    private double y(int i) {
+        return line != null ? line.getY(i) : batch.getY(i);
+    }
+}
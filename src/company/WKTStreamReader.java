@@ -0,0 +1,306 @@
+package company;
+
+import com.sinergise.geometry.Geometry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+
+/**
+ * Reads a sequence of WKT records from a {@link Reader}, e.g. a newline-delimited dump. Records are
+ * separated by a newline or a semicolon; blank records are skipped. The semicolon of an EWKT prefix, as in
+ * <code>SRID=4326;POINT (1 2)</code>, does not end a record.
+ * <p>
+ * Characters are pulled through a fixed-size buffer and only the record currently being parsed is kept
+ * in memory, so the heap needed does not depend on the size of the input:
+ * <pre><code>
+ * try (WKTStreamReader records = new WKTStreamReader(new FileReader("dump.wkt"))) {
+ *     Geometry geom;
+ *     while ((geom = records.read()) != null) {
+ *         ...
+ *     }
+ * }
+ * </code></pre>
+ * In skip mode invalid records are counted and dropped instead of ending the stream with a
+ * {@link WKTParseException}; errors of the underlying Reader are always thrown.
+ * <p>
+ * Compressed input is read with {@link #open(InputStream, WKTCodec, WKTReader, boolean)}, which
+ * decompresses on a thread of its own while the caller parses.
+ */
+public class WKTStreamReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final char NEW_LINE = '\n';
+    private static final char SEMICOLON = ';';
+
+    private final Reader in;
+    private final WKTReader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder record = new StringBuilder();
+    private int bufferPos;
+    private int bufferEnd;
+    private final boolean skipInvalid;
+    private long recordNumber;
+    private long skippedRecords;
+
+    public WKTStreamReader(Reader in) {
+        this(in, new WKTReader());
+    }
+
+    public WKTStreamReader(Reader in, WKTReader reader) {
+        this(in, reader, false);
+    }
+
+    /**
+     * @param skipInvalid whether records that fail to parse are skipped rather than thrown
+     */
+    public WKTStreamReader(Reader in, WKTReader reader, boolean skipInvalid) {
+        this.in = in;
+        this.reader = reader;
+        this.skipInvalid = skipInvalid;
+    }
+
+    /**
+     * Reads ASCII records from a compressed stream, e.g. a gzipped dump or
+     * {@link java.nio.channels.Channels#newInputStream a channel}, in a two-stage pipeline: a background
+     * thread reads and decompresses the stream into a few 64 KB chunks that the calling thread parses.
+     * The stages block on each other when all chunks are full or all empty, so memory use stays bounded.
+     * Errors of the decompressing stage are thrown by {@link #read()} after the records read before them.
+     * Closing the reader stops the background thread and closes the stream.
+     */
+    public static WKTStreamReader open(InputStream in, WKTCodec codec, WKTReader reader, boolean skipInvalid) {
+        return new WKTStreamReader(new DecompressingReader(in, codec, ChunkPipe.DEFAULT_CHUNKS, ChunkPipe.DEFAULT_CHUNK_SIZE),
+                reader, skipInvalid);
+    }
+
+    /**
+     * Parses the next record.
+     *
+     * @return the geometry, or null when the input is exhausted
+     */
+    public Geometry read() throws IOException {
+        while (nextRecord()) {
+            if (!isBlank(record, 0, record.length())) {
+                Geometry geometry;
+                try {
+                    geometry = reader.read(record);
+                } catch (WKTParseException e) {
+                    if (!skipInvalid) {
+                        throw e;
+                    }
+                    skippedRecords++;
+                    continue;
+                }
+                recordNumber++;
+                return geometry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of records returned by {@link #read()} so far.
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Returns the number of invalid records skipped so far, always 0 unless skipping is on.
+     */
+    public long getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Fills {@link #record} with the characters up to the next separator. Returns false at the end of the
+     * input when no characters were left.
+     */
+    private boolean nextRecord() throws IOException {
+        record.setLength(0);
+        while (true) {
+            if (bufferPos == bufferEnd) {
+                bufferEnd = in.read(buffer, 0, buffer.length);
+                bufferPos = 0;
+                if (bufferEnd <= 0) {
+                    bufferEnd = 0;
+                    return record.length() > 0;
+                }
+            }
+            int start = bufferPos;
+            while (bufferPos < bufferEnd) {
+                char c = buffer[bufferPos];
+                if (isSeparator(c)) {
+                    record.append(buffer, start, bufferPos - start);
+                    bufferPos++;
+                    if (c == SEMICOLON && isSridPrefix(record, 0, record.length())) {
+                        record.append(c);
+                        start = bufferPos;
+                        continue;
+                    }
+                    return true;
+                }
+                bufferPos++;
+            }
+            record.append(buffer, start, bufferPos - start);
+        }
+    }
+
+    static boolean isSeparator(char c) {
+        return c == NEW_LINE || c == SEMICOLON;
+    }
+
+    /**
+     * Returns whether the separator at pos ends the record starting at recordStart, i.e. it is not the
+     * semicolon of an SRID prefix.
+     */
+    static boolean endsRecord(CharSequence text, int recordStart, int pos) {
+        char c = text.charAt(pos);
+        return c == NEW_LINE || (c == SEMICOLON && !isSridPrefix(text, recordStart, pos));
+    }
+
+    /**
+     * Returns whether the text is exactly <code>SRID=n</code>, ignoring case and surrounding whitespace.
+     */
+    static boolean isSridPrefix(CharSequence text, int start, int end) {
+        WKTTokenizer tokenizer = new WKTTokenizer(text, start, end);
+        if (!tokenizer.isWordNext() || !tokenizer.tryKeyword(WKTTokenizer.SRID) || tokenizer.peek() != '=') {
+            return false;
+        }
+        int pos = tokenizer.position() + 1;
+        while (pos < end && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        if (pos < end && text.charAt(pos) == '-') {
+            pos++;
+        }
+        int digits = pos;
+        while (pos < end && text.charAt(pos) >= '0' && text.charAt(pos) <= '9') {
+            pos++;
+        }
+        return pos > digits && isBlank(text, pos, end);
+    }
+
+    static boolean isBlank(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Consumer stage of {@link #open(InputStream, WKTCodec, WKTReader, boolean)}: the characters of the
+     * chunks filled by the decompressing thread. Only that thread reads and closes the streams.
+     */
+    private static final class DecompressingReader extends Reader {
+
+        private static final long CLOSE_TIMEOUT_MILLIS = 10000;
+
+        private final ChunkPipe pipe;
+        private final Thread producer;
+        private ChunkPipe.Chunk chunk;
+        private int chunkPos;
+        private boolean ended;
+        private boolean closed;
+
+        DecompressingReader(InputStream in, WKTCodec codec, int chunks, int chunkSize) {
+            this.pipe = new ChunkPipe(chunks, chunkSize);
+            this.producer = ChunkPipe.start("wkt-decompress", () -> decompress(in, codec));
+        }
+
+        /**
+         * Producer stage. Each chunk is sent after a single read, so that records reach the parser as soon
+         * as they are decompressed. The text decompressed before an error is still sent, so that the records
+         * before it are parsed.
+         */
+        private void decompress(InputStream in, WKTCodec codec) {
+            InputStream source = in;
+            try {
+                source = codec.decompress(in);
+                while (!pipe.isCancelled()) {
+                    ChunkPipe.Chunk next = pipe.emptyChunk();
+                    if (pipe.isCancelled()) {
+                        break;
+                    }
+                    int n;
+                    do {
+                        n = source.read(next.data, 0, next.data.length);
+                    } while (n == 0);
+                    if (n < 0) {
+                        break;
+                    }
+                    next.length = n;
+                    pipe.send(next);
+                }
+            } catch (Throwable e) {
+                pipe.fail(e);
+            } finally {
+                pipe.end();
+                try {
+                    source.close();
+                } catch (IOException e) {
+                    pipe.fail(e);
+                }
+            }
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (chunk == null || chunkPos == chunk.length) {
+                if (ended) {
+                    return -1;
+                }
+                if (chunk != null) {
+                    pipe.recycle(chunk);
+                }
+                chunk = pipe.receive();
+                chunkPos = 0;
+                if (chunk == null) {
+                    ended = true;
+                    pipe.checkFailure();
+                    return -1;
+                }
+            }
+            int n = Math.min(length, chunk.length - chunkPos);
+            byte[] data = chunk.data;
+            for (int i = 0; i < n; i++) {
+                buffer[offset + i] = (char) (data[chunkPos + i] & 0xFF);
+            }
+            chunkPos += n;
+            return n;
+        }
+
+        /**
+         * Stops the decompressing thread and waits for it to close the streams. A thread blocked reading
+         * the underlying stream is given up on after a while.
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            ended = true;
+            pipe.cancel(chunk);
+            chunk = null;
+            try {
+                producer.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for decompression to stop");
+            }
+        }
+    }
+}
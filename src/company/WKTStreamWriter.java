@@ -0,0 +1,186 @@
+package company;
+
+import com.sinergise.geometry.Geometry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Writes geometries as newline-delimited ASCII WKT records to a compressed stream, the counterpart of
+ * {@link WKTStreamReader#open(java.io.InputStream, WKTCodec, WKTReader, boolean)}. e.g.
+ * <pre><code>
+ * try (WKTStreamWriter records = new WKTStreamWriter(new FileOutputStream("dump.wkt.gz"), WKTCodec.GZIP)) {
+ *     for (Geometry geom : geometries) {
+ *         records.write(geom);
+ *     }
+ * }
+ * </code></pre>
+ * Formatting and compression run in a two-stage pipeline: the calling thread formats each record into a
+ * reused buffer and copies it into a few 64 KB chunks that a background thread compresses and writes to
+ * the stream. The stages block on each other when all chunks are full or all empty, so memory use stays
+ * bounded. A geometry that cannot be formatted, e.g. one with a NaN ordinate, leaves nothing in the
+ * stream, so the caller can skip it and go on writing. An error of the compressing stage is thrown by a
+ * later {@link #write(Geometry)} or by {@link #close()}, which waits for all records to be compressed,
+ * finishes the compressed format and closes the stream.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class WKTStreamWriter implements Closeable {
+
+    private static final char NEW_LINE = '\n';
+    private static final int MAX_RETAINED_RECORD_CAPACITY = 1 << 20;
+
+    private final WKTWriter writer;
+    private final ChunkPipe pipe;
+    private final Thread consumer;
+    private final ChunkOutput output = new ChunkOutput();
+    private StringBuilder record = new StringBuilder();
+    private long recordNumber;
+    private boolean closed;
+
+    public WKTStreamWriter(OutputStream out, WKTCodec codec) {
+        this(out, codec, new WKTWriter());
+    }
+
+    public WKTStreamWriter(OutputStream out, WKTCodec codec, WKTWriter writer) {
+        this.writer = writer;
+        this.pipe = new ChunkPipe(ChunkPipe.DEFAULT_CHUNKS, ChunkPipe.DEFAULT_CHUNK_SIZE);
+        this.consumer = ChunkPipe.start("wkt-compress", () -> compress(out, codec));
+    }
+
+    /**
+     * Formats the geometry as the next record. If it cannot be formatted nothing is written.
+     */
+    public void write(Geometry geom) throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+        pipe.checkFailure();
+        record.setLength(0);
+        writer.write(geom, record);
+        if (recordNumber > 0) {
+            output.append(NEW_LINE);
+        }
+        output.append(record);
+        recordNumber++;
+        if (record.capacity() > MAX_RETAINED_RECORD_CAPACITY) {
+            record = new StringBuilder();
+        }
+    }
+
+    /**
+     * Returns the number of records written so far.
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            output.send();
+        } finally {
+            pipe.end();
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for compression to finish");
+            }
+        }
+        pipe.checkFailure();
+    }
+
+    /**
+     * Consumer stage: compresses the chunks in order. After a failure the remaining chunks are only
+     * recycled, so that the formatting thread never waits for an empty one in vain.
+     */
+    private void compress(OutputStream out, WKTCodec codec) {
+        OutputStream target = out;
+        try {
+            OutputStream compressed = codec.compress(out);
+            target = compressed;
+            for (ChunkPipe.Chunk chunk; (chunk = pipe.receive()) != null; pipe.recycle(chunk)) {
+                compressed.write(chunk.data, 0, chunk.length);
+            }
+            compressed.close();
+        } catch (Throwable e) {
+            pipe.fail(e);
+            try {
+                target.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            try {
+                for (ChunkPipe.Chunk chunk; (chunk = pipe.receive()) != null; ) {
+                    pipe.recycle(chunk);
+                }
+            } catch (IOException ignored) {
+                // the pipe cannot fail while draining, nothing interrupts this thread
+            }
+        }
+    }
+
+    /**
+     * Producer stage: ASCII text appended to the current chunk, which is sent once full.
+     */
+    private final class ChunkOutput implements Appendable {
+
+        private ChunkPipe.Chunk chunk;
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            int pos = start;
+            while (pos < end) {
+                if (chunk == null || chunk.length == chunk.data.length) {
+                    next();
+                }
+                byte[] data = chunk.data;
+                int chunkEnd = Math.min(end, pos + data.length - chunk.length);
+                int length = chunk.length;
+                for (; pos < chunkEnd; pos++) {
+                    data[length++] = WKTChannelOutput.toAscii(csq.charAt(pos));
+                }
+                chunk.length = length;
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            if (chunk == null || chunk.length == chunk.data.length) {
+                next();
+            }
+            chunk.data[chunk.length++] = WKTChannelOutput.toAscii(c);
+            return this;
+        }
+
+        private void next() throws IOException {
+            send();
+            pipe.checkFailure();
+            chunk = pipe.emptyChunk();
+        }
+
+        /**
+         * Hands the current chunk, if it holds any text, to the compressing thread.
+         */
+        void send() throws IOException {
+            if (chunk != null && chunk.length > 0) {
+                ChunkPipe.Chunk full = chunk;
+                chunk = null;
+                pipe.send(full);
+            }
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package company;
+
+import java.io.IOException;
+
+/**
+ * Cursor over a WKT character sequence. Every method moves the position forward only, so a whole
+ * geometry is tokenized in a single pass without creating substrings. Errors are
+ * {@link WKTParseException}s located at the character the cursor stopped at.
+ */
+final class WKTTokenizer {
+
+    static final String EMPTY = "EMPTY";
+    static final int NO_SRID = Integer.MIN_VALUE;
+    static final String SRID = "SRID";
+
+    private static final char OPEN_BRACKET = '(';
+    private static final char CLOSE_BRACKET = ')';
+    private static final char COMMA = ',';
+
+    private static final WKTDimension[] TAGGED_DIMENSIONS = {WKTDimension.XYZM, WKTDimension.XYZ, WKTDimension.XYM};
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    private static final int MAX_EXPONENT = 100000;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_EXACT_POWER = 22;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private CharSequence input;
+    private int recordStart;
+    private int end;
+    private int pos;
+    private WKTDimension suffixDimension;
+
+    WKTTokenizer() {
+    }
+
+    WKTTokenizer(CharSequence input) {
+        this(input, 0, input.length());
+    }
+
+    WKTTokenizer(CharSequence input, int start, int end) {
+        reset(input, start, end);
+    }
+
+    /**
+     * Points the cursor at the start of a new input, so that one instance can tokenize many inputs.
+     */
+    void reset(CharSequence input, int start, int end) {
+        this.input = input;
+        this.recordStart = start;
+        this.pos = start;
+        this.end = end;
+        this.suffixDimension = null;
+    }
+
+    int position() {
+        return pos;
+    }
+
+    /**
+     * Moves the cursor within the current input, keeping the record start that error offsets refer to.
+     */
+    void seek(int position) {
+        this.pos = position;
+        this.suffixDimension = null;
+    }
+
+    /**
+     * Skips whitespace and returns the next character without consuming it, or 0 at the end of input.
+     */
+    char peek() {
+        skipWhitespace();
+        return pos < end ? input.charAt(pos) : 0;
+    }
+
+    boolean isAtEnd() {
+        skipWhitespace();
+        return pos >= end;
+    }
+
+    void expectEnd() throws IOException {
+        if (!isAtEnd()) {
+            throw error("Unexpected character '" + input.charAt(pos) + "' after geometry");
+        }
+    }
+
+    boolean tryOpenBracket() {
+        return tryConsume(OPEN_BRACKET);
+    }
+
+    void expectOpenBracket() throws IOException {
+        expect(OPEN_BRACKET);
+    }
+
+    void expectCloseBracket() throws IOException {
+        expect(CLOSE_BRACKET);
+    }
+
+    /**
+     * Consumes either a comma (returns true) or a closing bracket (returns false).
+     */
+    boolean nextElement() throws IOException {
+        char c = peek();
+        if (c == COMMA) {
+            pos++;
+            return true;
+        }
+        if (c == CLOSE_BRACKET) {
+            pos++;
+            return false;
+        }
+        throw unexpected("',' or ')'");
+    }
+
+    boolean isWordNext() {
+        return isLetter(peek());
+    }
+
+    /**
+     * Reads a geometry type keyword, e.g. POINT or MULTIPOLYGON.
+     */
+    WKTGeometryType readGeometryType() throws IOException {
+        int start = skipWord();
+        WKTGeometryType type = WKTGeometryType.forKeyword(input, start, pos);
+        if (type == null) {
+            type = readTypeWithDimensionSuffix(start);
+        }
+        if (type == null) {
+            pos = start;
+            throw unexpected("geometry type");
+        }
+        return type;
+    }
+
+    /**
+     * Reads the dimension tag following a geometry type, <code>Z</code>, <code>M</code> or <code>ZM</code>,
+     * also when it was attached to the keyword as in <code>POINTZ</code>. Returns null if there is none.
+     */
+    WKTDimension readDimension() {
+        WKTDimension dimension = suffixDimension;
+        if (dimension != null) {
+            suffixDimension = null;
+            return dimension;
+        }
+        if (!isWordNext()) {
+            return null;
+        }
+        for (WKTDimension tagged : TAGGED_DIMENSIONS) {
+            if (tryKeyword(tagged.getTag())) {
+                return tagged;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the PostGIS prefix <code>SRID=n;</code> and returns n, or {@link #NO_SRID} if there is none.
+     */
+    int readSrid() throws IOException {
+        if (!tryKeyword(SRID)) {
+            return NO_SRID;
+        }
+        expect('=');
+        int start = pos;
+        double srid = readNumber();
+        if (srid != (int) srid) {
+            pos = start;
+            throw unexpected("integer SRID");
+        }
+        expect(';');
+        return (int) srid;
+    }
+
+    boolean isNumberNext() {
+        char c = peek();
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.';
+    }
+
+    /**
+     * Consumes the given keyword (ignoring case) if it is the next word.
+     */
+    boolean tryKeyword(String keyword) {
+        skipWhitespace();
+        int start = pos;
+        int wordEnd = start;
+        while (wordEnd < end && isLetter(input.charAt(wordEnd))) {
+            wordEnd++;
+        }
+        if (regionMatches(input, start, wordEnd, keyword)) {
+            pos = wordEnd;
+            return true;
+        }
+        return false;
+    }
+
+    void expectKeyword(String keyword) throws IOException {
+        if (!tryKeyword(keyword)) {
+            throw unexpected(keyword);
+        }
+    }
+
+    /**
+     * Reads a decimal number straight from the cursor: optional sign, digits, fraction and exponent.
+     * <p>
+     * Up to 18 significant digits are accumulated in a long. When that mantissa fits into 53 bits and the
+     * decimal exponent is within the exactly representable powers of ten, a single multiplication or
+     * division gives the correctly rounded result. The rare remaining inputs fall back to
+     * {@link Double#parseDouble(String)}.
+     */
+    double readNumber() throws IOException {
+        skipWhitespace();
+        int start = pos;
+        boolean negative = false;
+        if (pos < end && (input.charAt(pos) == '-' || input.charAt(pos) == '+')) {
+            negative = input.charAt(pos) == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        boolean anyDigit = false;
+        char c;
+        while (pos < end && (c = input.charAt(pos)) >= '0' && c <= '9') {
+            anyDigit = true;
+            if (digits < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                truncated |= c != '0';
+                exponent++;
+            }
+            pos++;
+        }
+        if (pos < end && input.charAt(pos) == '.') {
+            pos++;
+            while (pos < end && (c = input.charAt(pos)) >= '0' && c <= '9') {
+                anyDigit = true;
+                if (digits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    exponent--;
+                } else {
+                    truncated |= c != '0';
+                }
+                pos++;
+            }
+        }
+        if (!anyDigit) {
+            pos = start;
+            throw unexpected("number");
+        }
+        if (pos < end && (input.charAt(pos) == 'e' || input.charAt(pos) == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < end && (input.charAt(pos) == '-' || input.charAt(pos) == '+')) {
+                negativeExponent = input.charAt(pos) == '-';
+                pos++;
+            }
+            int exponentStart = pos;
+            int explicitExponent = 0;
+            while (pos < end && (c = input.charAt(pos)) >= '0' && c <= '9') {
+                if (explicitExponent < MAX_EXPONENT) {
+                    explicitExponent = explicitExponent * 10 + (c - '0');
+                }
+                pos++;
+            }
+            if (pos == exponentStart) {
+                throw unexpected("exponent digits");
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (pos < end && isNumberPart(input.charAt(pos))) {
+            throw unexpected("end of number");
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (!truncated && mantissa <= MAX_EXACT_MANTISSA && exponent >= -MAX_EXACT_POWER && exponent <= MAX_EXACT_POWER) {
+            value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            return Double.parseDouble(input.subSequence(start, pos).toString());
+        }
+        return negative ? -value : value;
+    }
+
+    private WKTGeometryType readTypeWithDimensionSuffix(int start) {
+        for (WKTDimension tagged : TAGGED_DIMENSIONS) {
+            int typeEnd = pos - tagged.getTag().length();
+            if (typeEnd > start && regionMatches(input, typeEnd, pos, tagged.getTag())) {
+                WKTGeometryType type = WKTGeometryType.forKeyword(input, start, typeEnd);
+                if (type != null) {
+                    suffixDimension = tagged;
+                    return type;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void expect(char c) throws IOException {
+        if (!tryConsume(c)) {
+            throw unexpected("'" + c + "'");
+        }
+    }
+
+    private boolean tryConsume(char c) {
+        if (peek() == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private int skipWord() {
+        skipWhitespace();
+        int start = pos;
+        while (pos < end && isLetter(input.charAt(pos))) {
+            pos++;
+        }
+        return start;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && Character.isWhitespace(input.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private WKTParseException unexpected(String expected) {
+        if (pos >= end) {
+            return error("Expected " + expected + " but reached end of input");
+        }
+        return error("Expected " + expected + " but found '" + input.charAt(pos) + "'");
+    }
+
+    /**
+     * Error at the current position.
+     */
+    WKTParseException error(String message) {
+        return errorAt(message, pos);
+    }
+
+    WKTParseException errorAt(String message, int position) {
+        return WKTParseException.at(message, input, recordStart, position);
+    }
+
+    private static boolean isNumberPart(char c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '-' || c == '+';
+    }
+
+    static boolean isLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    static boolean regionMatches(CharSequence input, int start, int end, String keyword) {
+        if (end - start != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if ((input.charAt(start + i) & ~0x20) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -3,16 +3,132 @@ package company;
 import com.sinergise.geometry.*;
 
 import java.io.IOException;
-import java.util.Iterator;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+/**
+ * Writes Geometry objects as WKT.
+ * <p>
+ * Instances are thread-safe once configured; one writer can be shared by any number of threads. Types
+ * should be {@link #register registered} before the writer is shared, writes running concurrently with a
+ * registration may still use the previous writer.
+ * <p>
+ * Written geometries can be reported to a {@link WKTMetrics} listener, which is off by default.
+ */
 public class WKTWriter {
 
     private static final String EMPTY = " EMPTY";
-    private static final String OPEN_BRACKET = "(";
-    private static final String CLOSE_BRACKET = ")";
-    private static final String OPEN_BRACKET_WITH_SPACE = " (";
+    private static final String SRID_PREFIX = "SRID=";
+    private static final char SRID_SEPARATOR = ';';
+    private static final char OPEN_BRACKET = '(';
+    private static final char CLOSE_BRACKET = ')';
+    private static final char SPACE = ' ';
     private static final String COMMA_WITH_SPACE = ", ";
-    private static final String CLOSE_BRACKET_WITH_COMMA_AND_SPACE = "), ";
+    private static final String COMMA = ",";
+    private static final int BUILDER_CAPACITY = 256;
+    private static final int MAX_RETAINED_BUILDER_CAPACITY = 1 << 20;
+    private static final int BATCHES_PER_THREAD = 4;
+
+    /**
+     * Direct buffer of {@link #write(Geometry, WritableByteChannel)}, reused per thread.
+     */
+    private static final ThreadLocalScratch<ByteBuffer> SEGMENTS =
+            new ThreadLocalScratch<>(() -> ByteBuffer.allocateDirect(WKTChannelOutput.DEFAULT_SEGMENT_SIZE));
+    private static final int TASKS_IN_FLIGHT_PER_THREAD = 2;
+
+    /**
+     * Output buffer of {@link #write(Geometry)}, reused per thread so that only the resulting String is
+     * allocated.
+     */
+    private static final ThreadLocalScratch<StringBuilder> BUILDERS =
+            new ThreadLocalScratch<>(() -> new StringBuilder(BUILDER_CAPACITY));
+
+    /**
+     * Writes one member of a built-in multi geometry or collection.
+     */
+    private interface MemberWriter {
+        void write(WKTWriter writer, Geometry member, Appendable out) throws IOException;
+    }
+
+    /**
+     * Text formatted by a task of the parallel {@link #writeAll}, with the error that stopped it if any. A
+     * split geometry spans several segments, only the last of them ends its record.
+     */
+    private static final class Segment {
+        final CharSequence text;
+        final boolean endsRecord;
+        final Exception failure;
+
+        Segment(CharSequence text, boolean endsRecord, Exception failure) {
+            this.text = text;
+            this.endsRecord = endsRecord;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Writer and keyword of a geometry class, resolved once per class. Built-in collections also have a
+     * member writer, so that their members can be written separately.
+     */
+    private static final class Dispatch {
+        final String keyword;
+        final String emptyText;
+        final WKTGeometryWriter<Geometry> writer;
+        final MemberWriter members;
+
+        @SuppressWarnings("unchecked")
+        Dispatch(String keyword, WKTGeometryWriter<?> writer, MemberWriter members) {
+            this.keyword = keyword;
+            this.emptyText = keyword + EMPTY;
+            this.writer = (WKTGeometryWriter<Geometry>) writer;
+            this.members = members;
+        }
+    }
+
+    private final Map<Class<?>, Dispatch> registered = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Dispatch> resolved = new ConcurrentHashMap<>();
+    private final WKTWriterConfig config;
+    private final WKTMetrics metrics;
+    private final String separator;
+
+    public WKTWriter() {
+        this(WKTWriterConfig.DEFAULT);
+    }
+
+    public WKTWriter(WKTWriterConfig config) {
+        this(config, WKTMetrics.NONE);
+    }
+
+    /**
+     * Writer that reports every geometry written through {@link #write(Geometry, Appendable)} and the
+     * methods built on it to the listener. Members of a geometry that
+     * {@link #writeAll(List, Appendable, CharSequence, ForkJoinPool, long)} splits are not reported.
+     */
+    public WKTWriter(WKTWriterConfig config, WKTMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+        this.separator = config.isCompact() ? COMMA : COMMA_WITH_SPACE;
+        register(Point.class, WKTGeometryType.POINT.getKeyword(), (geom, writer, out) -> writer.writePointText(geom, out));
+        register(LineString.class, WKTGeometryType.LINESTRING.getKeyword(), (geom, writer, out) -> writer.writeLineStringText(geom, false, out));
+        register(Polygon.class, WKTGeometryType.POLYGON.getKeyword(), (geom, writer, out) -> writer.writePolygonText(geom, out));
+        registerCollection(MultiPoint.class, WKTGeometryType.MULTIPOINT, (writer, member, out) -> writer.writeMultiPointMember((Point) member, out));
+        registerCollection(MultiLineString.class, WKTGeometryType.MULTILINESTRING, (writer, member, out) -> writer.writeLineStringMember((LineString) member, false, out));
+        registerCollection(MultiPolygon.class, WKTGeometryType.MULTIPOLYGON, (writer, member, out) -> writer.writeMultiPolygonMember((Polygon) member, out));
+        registerCollection(GeometryCollection.class, WKTGeometryType.GEOMETRYCOLLECTION, WKTWriter::writeGeometry);
+        register(PointZM.class, WKTGeometryType.POINT.getKeyword(), (geom, writer, out) -> writer.writePointText(geom, out));
+        registerCollection(MultiPointZM.class, WKTGeometryType.MULTIPOINT, (writer, member, out) -> writer.writeMultiPointMember((PointZM) member, out));
+        registerCollection(MultiLineStringZM.class, WKTGeometryType.MULTILINESTRING, (writer, member, out) -> writer.writeLineStringMember((LineString) member, false, out));
+        registerCollection(MultiPolygonZM.class, WKTGeometryType.MULTIPOLYGON, (writer, member, out) -> writer.writeMultiPolygonMember((Polygon) member, out));
+    }
 
     /**
      * Transforms the input Geometry object into WKT-formatted String. e.g.
@@ -29,115 +145,694 @@ public class WKTWriter {
      * returns "GEOMETRYCOLLECTION (POINT (4 6), LINESTRING (4 6, 7 10))"
      */
     public String write(Geometry geom) throws IOException {
+        StringBuilder sb = BUILDERS.acquire();
+        try {
+            write(geom, sb);
+            return sb.toString();
+        } finally {
+            releaseBuilder(sb);
+        }
+    }
 
-        if (geom.isEmpty()) {
-            return geom.getClass().getSimpleName().toUpperCase() + EMPTY;
+    private static void releaseBuilder(StringBuilder sb) {
+        sb.setLength(0);
+        if (sb.capacity() > MAX_RETAINED_BUILDER_CAPACITY) {
+            sb.trimToSize();
+            sb.ensureCapacity(BUILDER_CAPACITY);
         }
+        BUILDERS.release(sb);
+    }
 
-        if (geom instanceof MultiPolygon) {
-            return getMultiPolygonString(geom);
+    /**
+     * Appends the WKT representation of the geometry to the output, e.g. a StringBuilder or a Writer.
+     * Nothing is buffered, so large geometries stream straight into the target.
+     * <p>
+     * By default ordinates are written in the shortest decimal form that reads back to the same double,
+     * see {@link WKTWriterConfig} for the other options.
+     * <p>
+     * Geometries with z or m ordinates are tagged, e.g. <code>POINT Z (1 2 3)</code>, and an
+     * {@link EWKTGeometry} is written with its <code>SRID=n;</code> prefix.
+     */
+    public void write(Geometry geom, Appendable out) throws IOException {
+        if (metrics == WKTMetrics.NONE) {
+            writeGeometry(geom, out);
+            return;
         }
-        if (geom instanceof MultiPoint) {
-            return getMultiPointString(geom);
+        CountingAppendable counted = new CountingAppendable(out);
+        long started = System.nanoTime();
+        try {
+            writeGeometry(geom, counted);
+        } catch (IOException | RuntimeException e) {
+            metrics.writeFailed(e);
+            throw e;
         }
-        if (geom instanceof MultiLineString) {
-            return getMultiLineString(geom);
+        metrics.geometryWritten(geom, counted.count, counted.vertices, System.nanoTime() - started);
+    }
+
+    private void writeGeometry(Geometry geom, Appendable out) throws IOException {
+        if (geom instanceof EWKTGeometry) {
+            EWKTGeometry ewkt = (EWKTGeometry) geom;
+            out.append(SRID_PREFIX).append(Integer.toString(ewkt.getSrid())).append(SRID_SEPARATOR);
+            geom = ewkt.getGeometry();
         }
-        if (geom instanceof GeometryCollection) {
-            return getGeometryCollectionString(geom);
+        Dispatch dispatch = dispatch(geom.getClass());
+        WKTDimension dimension = dimensionOf(geom);
+        if (dimension == WKTDimension.XY && geom.isEmpty()) {
+            out.append(dispatch.emptyText);
+            return;
         }
-        if (geom instanceof LineString) {
+        out.append(dispatch.keyword);
+        if (dimension != WKTDimension.XY) {
+            out.append(SPACE).append(dimension.getTag());
+            if (geom.isEmpty()) {
+                out.append(EMPTY);
+                return;
+            }
+        }
+        if (!config.isCompact()) {
+            out.append(SPACE);
+        }
+        dispatch.writer.writeText(geom, this, out);
+    }
 
-            return concat(geom, getLineStringCoordinates((LineString) geom));
+    /**
+     * Writes the WKT as ASCII bytes to the channel through a reused direct buffer, flushed whenever it
+     * fills, so the text is never held as a whole. The channel is not closed.
+     *
+     * @see WKTChannelOutput
+     */
+    public void write(Geometry geom, WritableByteChannel channel) throws IOException {
+        ByteBuffer segment = SEGMENTS.acquire();
+        try {
+            WKTChannelOutput out = new WKTChannelOutput(channel, segment);
+            write(geom, out);
+            out.flush();
+        } finally {
+            SEGMENTS.release(segment);
         }
-        if (geom instanceof Point) {
-            return concat(geom, getPointCoordinates((Point) geom));
+    }
 
+    /**
+     * Writes the geometries one after another, with the separator between them, e.g. "\n".
+     * <p>
+     * Each geometry is formatted into a reused buffer before it is appended, so if one cannot be written
+     * the output ends with the complete records before it.
+     */
+    public void writeAll(List<? extends Geometry> geometries, Appendable out, CharSequence separator) throws IOException {
+        StringBuilder record = BUILDERS.acquire();
+        try {
+            for (int i = 0; i < geometries.size(); i++) {
+                record.setLength(0);
+                write(geometries.get(i), record);
+                if (i > 0) {
+                    out.append(separator);
+                }
+                out.append(record);
+            }
+        } finally {
+            releaseBuilder(record);
         }
-        if (geom instanceof Polygon) {
-            return concat(geom, OPEN_BRACKET, getPolygonCoordinates(((Polygon) geom)), CLOSE_BRACKET);
+    }
+
+    /**
+     * Same output as {@link #writeAll(List, Appendable, CharSequence)}, formatted on the pool. Batches of
+     * geometries are formatted into separate buffers on the worker threads and appended to the output in
+     * order as they complete, with a bounded number of batches in flight.
+     * <p>
+     * A built-in multi geometry or collection with at least splitVertices vertices is split further, its
+     * members are formatted in batches of their own; pass Long.MAX_VALUE to never split. The parts of a
+     * split geometry are held back until its last part is done, so on failure the output ends with the
+     * same complete records as with the sequential overload.
+     */
+    public void writeAll(List<? extends Geometry> geometries, Appendable out, CharSequence separator,
+                         ForkJoinPool pool, long splitVertices) throws IOException {
+        int batches = pool.getParallelism() * BATCHES_PER_THREAD;
+        int batchSize = Math.max(1, geometries.size() / batches);
+        List<Callable<Segment>> segments = new ArrayList<>();
+        int from = 0;
+        for (int i = 0; i < geometries.size(); i++) {
+            Geometry geometry = geometries.get(i);
+            Dispatch dispatch = geometry instanceof EWKTGeometry ? null : dispatch(geometry.getClass());
+            long vertices = dispatch == null || dispatch.members == null || geometry.isEmpty() ? 0 : countVertices(geometry);
+            if (vertices > 0 && vertices >= splitVertices) {
+                addBatch(segments, geometries, from, i, separator);
+                addMemberBatches(segments, (GeometryCollection<?>) geometry, dispatch, i > 0 ? separator : "",
+                        Math.max(1, vertices / batches));
+                from = i + 1;
+            } else if (i + 1 - from == batchSize) {
+                addBatch(segments, geometries, from, i + 1, separator);
+                from = i + 1;
+            }
+        }
+        addBatch(segments, geometries, from, geometries.size(), separator);
+
+        int maxInFlight = pool.getParallelism() * TASKS_IN_FLIGHT_PER_THREAD;
+        Deque<Future<Segment>> inFlight = new ArrayDeque<>();
+        StringBuilder pending = new StringBuilder();
+        int next = 0;
+        try {
+            while (next < segments.size() || !inFlight.isEmpty()) {
+                while (next < segments.size() && inFlight.size() < maxInFlight) {
+                    inFlight.add(pool.submit(segments.get(next++)));
+                }
+                Segment segment = WKTBulkLoader.await(inFlight.poll());
+                if (segment.failure != null) {
+                    if (segment.endsRecord) {
+                        out.append(segment.text);
+                    }
+                    if (segment.failure instanceof IOException) {
+                        throw (IOException) segment.failure;
+                    }
+                    throw (RuntimeException) segment.failure;
+                }
+                if (!segment.endsRecord) {
+                    pending.append(segment.text);
+                } else if (pending.length() > 0) {
+                    out.append(pending.append(segment.text));
+                    pending.setLength(0);
+                } else {
+                    out.append(segment.text);
+                }
+            }
+        } finally {
+            for (Future<Segment> segment : inFlight) {
+                segment.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Writes the i-th geometry of a columnar batch, the same text as for the geometry
+     * {@link WKTReader} parses from the record it was decoded from.
+     */
+    public void write(WKTColumnarBatch batch, int i, Appendable out) throws IOException {
+        WKTGeometryType type = batch.type(i);
+        int firstPart = batch.getGeometryOffsets()[i];
+        int endPart = batch.getGeometryOffsets()[i + 1];
+        out.append(type.getKeyword());
+        if (firstPart == endPart) {
+            out.append(EMPTY);
+            return;
+        }
+        if (!config.isCompact()) {
+            out.append(SPACE);
         }
-        throw new IOException("Parsing not good");
+        int[] partOffsets = batch.getPartOffsets();
+        switch (type) {
+            case POINT:
+            case LINESTRING:
+                writeRingText(batch, partOffsets[firstPart], false, out);
+                return;
+            case POLYGON:
+                writePolygonText(batch, firstPart, out);
+                return;
+            default:
+                break;
+        }
+        out.append(OPEN_BRACKET);
+        for (int part = firstPart; part < endPart; part++) {
+            if (part > firstPart) {
+                out.append(separator);
+            }
+            if (partOffsets[part] < partOffsets[part + 1]) {
+                if (type == WKTGeometryType.MULTIPOLYGON) {
+                    writePolygonText(batch, part, out);
+                } else {
+                    writeRingText(batch, partOffsets[part], false, out);
+                }
+            } else if (type == WKTGeometryType.MULTIPOLYGON) {
+                out.append(OPEN_BRACKET).append(WKTGeometryType.POLYGON.getKeyword()).append(EMPTY).append(CLOSE_BRACKET);
+            } else {
+                WKTGeometryType member = type == WKTGeometryType.MULTIPOINT ? WKTGeometryType.POINT : WKTGeometryType.LINESTRING;
+                out.append(member.getKeyword()).append(EMPTY);
+            }
+        }
+        out.append(CLOSE_BRACKET);
     }
 
-    private String getGeometryCollectionString(Geometry geom) throws IOException {
-        Iterator it = ((GeometryCollection) geom).iterator();
-        String returnValue = geom.getClass().getSimpleName().toUpperCase() + OPEN_BRACKET_WITH_SPACE;
-        while (it.hasNext()) {
-            returnValue = returnValue + write((Geometry) it.next()) + COMMA_WITH_SPACE;
+    /**
+     * Writes all geometries of the batch one after another, with the separator between them.
+     */
+    public void writeAll(WKTColumnarBatch batch, Appendable out, CharSequence separator) throws IOException {
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                out.append(separator);
+            }
+            write(batch, i, out);
         }
-        return removeLastTwoChars(returnValue) + CLOSE_BRACKET;
     }
 
-    private String getMultiLineString(Geometry geom) {
-        String returnValue = geom.getClass().getSimpleName().toUpperCase() + OPEN_BRACKET_WITH_SPACE;
+    /**
+     * Registers the writer and keyword used for the given geometry class and, unless registered
+     * themselves, its subclasses. Subclasses of the built-in types are written with the keyword of the
+     * nearest built-in superclass, e.g. a subclass of Polygon as POLYGON.
+     */
+    public <T extends Geometry> void register(Class<T> type, String keyword, WKTGeometryWriter<? super T> writer) {
+        registered.put(type, new Dispatch(keyword, writer, null));
+        resolved.clear();
+    }
+
+    private void registerCollection(Class<?> type, WKTGeometryType keyword, MemberWriter members) {
+        WKTGeometryWriter<GeometryCollection<?>> writer = (geom, w, out) -> w.writeMembers(geom, members, out);
+        registered.put(type, new Dispatch(keyword.getKeyword(), writer, members));
+        resolved.clear();
+    }
 
-        for (int i = 0; i < ((MultiLineString) geom).size(); i++) {
-            returnValue = returnValue + getLineStringCoordinates(((MultiLineString) geom).get(i)) + COMMA_WITH_SPACE;
+    public WKTWriterConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Appends one ordinate in the number format of this writer.
+     */
+    public void writeNumber(double value, Appendable out) throws IOException {
+        if (config.getDecimalPlaces() < 0) {
+            DoubleFormatter.append(out, value);
+        } else {
+            DoubleFormatter.appendFixed(out, value, config.getDecimalPlaces(), config.isTrimTrailingZeros());
         }
-        return removeLastTwoChars(returnValue) + CLOSE_BRACKET;
     }
 
-    private String getMultiPointString(Geometry geom) {
-        String returnValue = geom.getClass().getSimpleName().toUpperCase() + OPEN_BRACKET_WITH_SPACE;
-        for (int i = 0; i < ((MultiPoint) geom).size(); i++) {
-            returnValue = returnValue + getPointCoordinates(((MultiPoint) geom).get(i)) + COMMA_WITH_SPACE;
+    private Dispatch dispatch(Class<?> type) throws IOException {
+        Dispatch dispatch = resolved.get(type);
+        if (dispatch == null) {
+            dispatch = resolve(type);
+            resolved.put(type, dispatch);
         }
-        return removeLastTwoChars(returnValue) + CLOSE_BRACKET;
+        return dispatch;
     }
 
-    private String getMultiPolygonString(Geometry geom) {
-        String returnValue = geom.getClass().getSimpleName().toUpperCase() + OPEN_BRACKET_WITH_SPACE;
-        for (int i = 0; i < ((MultiPolygon) geom).size(); i++) {
-            returnValue = returnValue + OPEN_BRACKET + getPolygonCoordinates(((MultiPolygon) geom).get(i)) + CLOSE_BRACKET_WITH_COMMA_AND_SPACE;
+    private Dispatch resolve(Class<?> type) throws IOException {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            Dispatch dispatch = registered.get(c);
+            if (dispatch != null) {
+                return dispatch;
+            }
         }
-        return removeLastTwoChars(returnValue) + CLOSE_BRACKET;
+        throw new IOException("No WKT writer registered for " + type.getName());
     }
 
-    private String concat(Geometry geometry, String... parts) {
+    private void writeMembers(GeometryCollection<?> geom, MemberWriter members, Appendable out) throws IOException {
+        out.append(OPEN_BRACKET);
+        writeMembers(geom, 0, geom.size(), members, out);
+        out.append(CLOSE_BRACKET);
+    }
 
-        return geometry.getClass().getSimpleName().toUpperCase() + " " + String.join("", parts);
+    private void writeMembers(GeometryCollection<?> geom, int from, int to, MemberWriter members, Appendable out) throws IOException {
+        for (int i = from; i < to; i++) {
+            if (i > 0) {
+                out.append(separator);
+            }
+            members.write(this, geom.get(i), out);
+        }
     }
 
+    /**
+     * Point inside a multipoint, where an empty one is tagged: POINT EMPTY.
+     */
+    private void writeMultiPointMember(Point point, Appendable out) throws IOException {
+        if (point.isEmpty()) {
+            out.append(WKTGeometryType.POINT.getKeyword()).append(EMPTY);
+        } else {
+            writePointText(point, out);
+        }
+    }
+
+    private void writeMultiPointMember(PointZM point, Appendable out) throws IOException {
+        if (point.isEmpty()) {
+            out.append(WKTGeometryType.POINT.getKeyword()).append(EMPTY);
+        } else {
+            writePointText(point, out);
+        }
+    }
+
+    /**
+     * Polygon inside a multipolygon, where an empty one is written as (POLYGON EMPTY).
+     */
+    private void writeMultiPolygonMember(Polygon polygon, Appendable out) throws IOException {
+        if (polygon.isEmpty()) {
+            out.append(OPEN_BRACKET).append(WKTGeometryType.POLYGON.getKeyword()).append(EMPTY).append(CLOSE_BRACKET);
+        } else {
+            writePolygonText(polygon, out);
+        }
+    }
 
-    private String getPolygonCoordinates(Polygon geom) {
-        if (geom.isEmpty()) {
-            return geom.getClass().getSimpleName().toUpperCase() + EMPTY;
+    /**
+     * Formats the geometries into one segment; on failure it holds the complete records before the failed
+     * one.
+     */
+    private void addBatch(List<Callable<Segment>> segments, List<? extends Geometry> geometries, int from, int to,
+                          CharSequence recordSeparator) {
+        if (from == to) {
+            return;
         }
-        String returnValue = getLineStringCoordinates(geom.getOuter());
-        if (geom.getNumHoles() > 0) {
-            for (int i = 0; i < geom.getNumHoles(); i++) {
-                returnValue = returnValue + COMMA_WITH_SPACE + getLineStringCoordinates(geom.getHole(i));
+        segments.add(() -> {
+            StringBuilder batch = new StringBuilder();
+            for (int i = from; i < to; i++) {
+                int recordStart = batch.length();
+                try {
+                    if (i > 0) {
+                        batch.append(recordSeparator);
+                    }
+                    write(geometries.get(i), batch);
+                } catch (IOException | RuntimeException e) {
+                    batch.setLength(recordStart);
+                    return new Segment(batch, true, e);
+                }
+            }
+            return new Segment(batch, true, null);
+        });
+    }
+
+    private void addMemberBatches(List<Callable<Segment>> segments, GeometryCollection<?> geom, Dispatch dispatch,
+                                  CharSequence leadingSeparator, long batchVertices) throws IOException {
+        WKTDimension dimension = dimensionOf(geom);
+        String tag = dimension == WKTDimension.XY ? "" : SPACE + dimension.getTag();
+        String prefix = leadingSeparator + dispatch.keyword + tag + (config.isCompact() ? "" : String.valueOf(SPACE)) + OPEN_BRACKET;
+        segments.add(() -> new Segment(prefix, false, null));
+        int from = 0;
+        long vertices = 0;
+        for (int i = 0; i < geom.size(); i++) {
+            vertices += countVertices(geom.get(i));
+            if (vertices >= batchVertices || i == geom.size() - 1) {
+                int batchFrom = from;
+                int batchTo = i + 1;
+                segments.add(() -> {
+                    StringBuilder batch = new StringBuilder();
+                    try {
+                        writeMembers(geom, batchFrom, batchTo, dispatch.members, batch);
+                    } catch (IOException | RuntimeException e) {
+                        return new Segment(batch, false, e);
+                    }
+                    return new Segment(batch, false, null);
+                });
+                from = i + 1;
+                vertices = 0;
             }
         }
-        return returnValue;
+        segments.add(() -> new Segment(String.valueOf(CLOSE_BRACKET), true, null));
     }
 
-    private String getPointCoordinates(Point geom) {
-        if (geom.isEmpty()) {
-            return geom.getClass().getSimpleName().toUpperCase() + EMPTY;
+    /**
+     * Dimension tag of the geometry: its own for the z/m types and the common one of the non empty rings or
+     * members of a plain polygon, multilinestring or multipolygon, whose empty parts are written untagged.
+     * A geometry collection has none, its members are tagged one by one.
+     *
+     * @throws IOException if the rings or members differ in dimension, so no tag fits them all
+     */
+    static WKTDimension dimensionOf(Geometry geom) throws IOException {
+        if (geom instanceof GeometryZM) {
+            GeometryZM zm = (GeometryZM) geom;
+            return WKTDimension.of(zm.hasZ(), zm.hasM());
         }
-        return OPEN_BRACKET + (int) geom.getX() + " " + (int) geom.getY() + CLOSE_BRACKET;
+        WKTDimension dimension = null;
+        if (geom instanceof Polygon && !geom.isEmpty()) {
+            Polygon polygon = (Polygon) geom;
+            dimension = dimensionOf(polygon.getOuter());
+            for (int i = 0; i < polygon.getNumHoles(); i++) {
+                dimension = commonDimension(geom, dimension, polygon.getHole(i));
+            }
+        } else if (geom instanceof MultiLineString || geom instanceof MultiPolygon) {
+            for (Geometry member : (GeometryCollection<?>) geom) {
+                dimension = commonDimension(geom, dimension, member);
+            }
+        }
+        return dimension == null ? WKTDimension.XY : dimension;
     }
 
-    private String getLineStringCoordinates(LineString geom) {
-        if (geom.isEmpty()) {
-            return geom.getClass().getSimpleName().toUpperCase() + EMPTY;
+    private static WKTDimension commonDimension(Geometry geom, WKTDimension dimension, Geometry part) throws IOException {
+        if (part.isEmpty()) {
+            return dimension;
         }
-        String returnValue = OPEN_BRACKET;
-        for (int i = 0; i < geom.getNumCoords(); i++) {
-            returnValue = returnValue + (int) geom.getX(i) + " ";
-            returnValue = returnValue + (int) geom.getY(i) + COMMA_WITH_SPACE;
+        WKTDimension partDimension = dimensionOf(part);
+        if (dimension != null && partDimension != dimension) {
+            throw new IOException("Cannot write " + geom.getClass().getSimpleName() + " with parts of dimension "
+                    + dimension + " and " + partDimension);
+        }
+        return partDimension;
+    }
+
+    /**
+     * Number of vertices of the geometry; walks parts, not coordinates.
+     */
+    static long countVertices(Geometry geom) {
+        if (geom instanceof Point || geom instanceof PointZM) {
+            return geom.isEmpty() ? 0 : 1;
+        }
+        if (geom instanceof EWKTGeometry) {
+            return countVertices(((EWKTGeometry) geom).getGeometry());
+        }
+        if (geom instanceof LineString) {
+            return ((LineString) geom).getNumCoords();
+        }
+        if (geom instanceof Polygon) {
+            Polygon polygon = (Polygon) geom;
+            if (polygon.isEmpty()) {
+                return 0;
+            }
+            long vertices = polygon.getOuter().getNumCoords();
+            for (int i = 0; i < polygon.getNumHoles(); i++) {
+                vertices += polygon.getHole(i).getNumCoords();
+            }
+            return vertices;
+        }
+        if (geom instanceof GeometryCollection) {
+            long vertices = 0;
+            for (Geometry member : (GeometryCollection<?>) geom) {
+                vertices += countVertices(member);
+            }
+            return vertices;
+        }
+        return 0;
+    }
+
+    private void writePolygonText(Polygon geom, Appendable out) throws IOException {
+        out.append(OPEN_BRACKET);
+        writeLineStringMember(geom.getOuter(), true, out);
+        for (int i = 0; i < geom.getNumHoles(); i++) {
+            out.append(separator);
+            writeLineStringMember(geom.getHole(i), true, out);
+        }
+        out.append(CLOSE_BRACKET);
+    }
+
+    private void writePolygonText(WKTColumnarBatch batch, int part, Appendable out) throws IOException {
+        int[] partOffsets = batch.getPartOffsets();
+        int[] ringOffsets = batch.getRingOffsets();
+        out.append(OPEN_BRACKET);
+        for (int ring = partOffsets[part]; ring < partOffsets[part + 1]; ring++) {
+            if (ring > partOffsets[part]) {
+                out.append(separator);
+            }
+            if (ringOffsets[ring] == ringOffsets[ring + 1]) {
+                out.append(WKTGeometryType.LINESTRING.getKeyword()).append(EMPTY);
+            } else {
+                writeRingText(batch, ring, true, out);
+            }
+        }
+        out.append(CLOSE_BRACKET);
+    }
+
+    /**
+     * Vertices of one ring of the batch, which is closed if it is a polygon ring.
+     */
+    private void writeRingText(WKTColumnarBatch batch, int ring, boolean closed, Appendable out) throws IOException {
+        int[] ringOffsets = batch.getRingOffsets();
+        if (config.simplifies()) {
+            WKTSimplifier simplifier = WKTSimplifier.SCRATCH.acquire();
+            try {
+                int count = simplifier.simplify(batch, ringOffsets[ring], ringOffsets[ring + 1], closed, config);
+                out.append(OPEN_BRACKET);
+                for (int k = 0; k < count; k++) {
+                    if (k > 0) {
+                        out.append(separator);
+                    }
+                    int vertex = simplifier.index(k);
+                    writeNumber(batch.getX(vertex), out);
+                    out.append(SPACE);
+                    writeNumber(batch.getY(vertex), out);
+                }
+                out.append(CLOSE_BRACKET);
+            } finally {
+                simplifier.release();
+                WKTSimplifier.SCRATCH.release(simplifier);
+            }
+            return;
+        }
+        out.append(OPEN_BRACKET);
+        for (int vertex = ringOffsets[ring]; vertex < ringOffsets[ring + 1]; vertex++) {
+            if (vertex > ringOffsets[ring]) {
+                out.append(separator);
+            }
+            writeNumber(batch.getX(vertex), out);
+            out.append(SPACE);
+            writeNumber(batch.getY(vertex), out);
+        }
+        out.append(CLOSE_BRACKET);
+    }
+
+    private void writePointText(Point geom, Appendable out) throws IOException {
+        CountingAppendable.addVertices(out, 1);
+        out.append(OPEN_BRACKET);
+        writeNumber(geom.getX(), out);
+        out.append(SPACE);
+        writeNumber(geom.getY(), out);
+        out.append(CLOSE_BRACKET);
+    }
+
+    private void writePointText(PointZM geom, Appendable out) throws IOException {
+        CountingAppendable.addVertices(out, 1);
+        out.append(OPEN_BRACKET);
+        writeNumber(geom.getX(), out);
+        out.append(SPACE);
+        writeNumber(geom.getY(), out);
+        if (geom.hasZ()) {
+            out.append(SPACE);
+            writeNumber(geom.getZ(), out);
+        }
+        if (geom.hasM()) {
+            out.append(SPACE);
+            writeNumber(geom.getM(), out);
+        }
+        out.append(CLOSE_BRACKET);
+    }
+
+    /**
+     * Linestring inside a multi geometry or polygon, where an empty one is tagged: LINESTRING EMPTY.
+     */
+    private void writeLineStringMember(LineString geom, boolean ring, Appendable out) throws IOException {
+        if (geom.getNumCoords() == 0) {
+            out.append(WKTGeometryType.LINESTRING.getKeyword()).append(EMPTY);
+            return;
+        }
+        writeLineStringText(geom, ring, out);
+    }
+
+    private void writeLineStringText(LineString geom, boolean ring, Appendable out) throws IOException {
+        int numCoords = geom.getNumCoords();
+        if (numCoords == 0) {
+            out.append(EMPTY, 1, EMPTY.length());
+            return;
+        }
+        if (config.simplifies()) {
+            writeSimplifiedLineStringText(geom, ring, out);
+            return;
+        }
+        if (geom instanceof LineStringZM) {
+            writeLineStringText((LineStringZM) geom, out);
+            return;
+        }
+        CountingAppendable.addVertices(out, numCoords);
+        out.append(OPEN_BRACKET);
+        for (int i = 0; i < numCoords; i++) {
+            if (i > 0) {
+                out.append(separator);
+            }
+            writeNumber(geom.getX(i), out);
+            out.append(SPACE);
+            writeNumber(geom.getY(i), out);
         }
-        return removeLastTwoChars(returnValue) + CLOSE_BRACKET;
+        out.append(CLOSE_BRACKET);
     }
 
-    private CharSequence removeLastTwoChars(String returnValue) {
-        if (returnValue.length() > 2) {
-            return returnValue.subSequence(0, returnValue.length() - 2);
+    /**
+     * Vertices selected by a {@link WKTSimplifier}, with z and m of a {@link LineStringZM}.
+     */
+    private void writeSimplifiedLineStringText(LineString geom, boolean ring, Appendable out) throws IOException {
+        LineStringZM zm = geom instanceof LineStringZM ? (LineStringZM) geom : null;
+        WKTSimplifier simplifier = WKTSimplifier.SCRATCH.acquire();
+        try {
+            int count = simplifier.simplify(geom, ring, config);
+            CountingAppendable.addVertices(out, count);
+            out.append(OPEN_BRACKET);
+            for (int k = 0; k < count; k++) {
+                if (k > 0) {
+                    out.append(separator);
+                }
+                int i = simplifier.index(k);
+                writeNumber(geom.getX(i), out);
+                out.append(SPACE);
+                writeNumber(geom.getY(i), out);
+                if (zm != null && zm.hasZ()) {
+                    out.append(SPACE);
+                    writeNumber(zm.getZ(i), out);
+                }
+                if (zm != null && zm.hasM()) {
+                    out.append(SPACE);
+                    writeNumber(zm.getM(i), out);
+                }
+            }
+            out.append(CLOSE_BRACKET);
+        } finally {
+            simplifier.release();
+            WKTSimplifier.SCRATCH.release(simplifier);
+        }
+    }
+
+    private void writeLineStringText(LineStringZM geom, Appendable out) throws IOException {
+        boolean hasZ = geom.hasZ();
+        boolean hasM = geom.hasM();
+        CountingAppendable.addVertices(out, geom.getNumCoords());
+        out.append(OPEN_BRACKET);
+        for (int i = 0; i < geom.getNumCoords(); i++) {
+            if (i > 0) {
+                out.append(separator);
+            }
+            writeNumber(geom.getX(i), out);
+            out.append(SPACE);
+            writeNumber(geom.getY(i), out);
+            if (hasZ) {
+                out.append(SPACE);
+                writeNumber(geom.getZ(i), out);
+            }
+            if (hasM) {
+                out.append(SPACE);
+                writeNumber(geom.getM(i), out);
+            }
         }
-        return returnValue.subSequence(0, returnValue.length() - 1);
+        out.append(CLOSE_BRACKET);
     }
 
+    /**
+     * Counts the characters passed through to the output and the vertices written, for the metrics listener.
+     */
+    private static final class CountingAppendable implements Appendable {
+        private final Appendable out;
+        long count;
+        long vertices;
 
+        CountingAppendable(Appendable out) {
+            this.out = out;
+        }
+
+        /**
+         * Counts vertices about to be written to the output, if it counts.
+         */
+        static void addVertices(Appendable out, int vertices) {
+            if (out instanceof CountingAppendable) {
+                ((CountingAppendable) out).vertices += vertices;
+            }
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            out.append(csq);
+            count += csq.length();
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            out.append(csq, start, end);
+            count += end - start;
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            out.append(c);
+            count++;
+            return this;
+        }
+    }
 }
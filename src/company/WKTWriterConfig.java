@@ -0,0 +1,148 @@
+package company;
+
+/**
+ * Output options of a {@link WKTWriter}. e.g.
+ * <pre><code>
+ * new WKTWriter(WKTWriterConfig.builder().decimalPlaces(6).compact(true).build())
+ *         .write(new LineString(new double[]{30.1234567, 10, 10, 30}));
+ * //returns "LINESTRING(30.123457 10.000000,10.000000 30.000000)"
+ * </code></pre>
+ * Linestrings and rings can be simplified while they are written, e.g. for rendering at a zoom level
+ * where one unit is a pixel: {@code builder().decimalPlaces(0).removeDuplicates(true).simplifyTolerance(0.5)}.
+ * Instances are immutable.
+ */
+public final class WKTWriterConfig {
+
+    /**
+     * Shortest round-trip ordinates, ", " separators and a space before brackets.
+     */
+    public static final WKTWriterConfig DEFAULT = builder().build();
+
+    private final int decimalPlaces;
+    private final boolean compact;
+    private final boolean trimTrailingZeros;
+    private final boolean removeDuplicates;
+    private final double simplifyTolerance;
+
+    private WKTWriterConfig(Builder builder) {
+        this.decimalPlaces = builder.decimalPlaces;
+        this.compact = builder.compact;
+        this.trimTrailingZeros = builder.trimTrailingZeros;
+        this.removeDuplicates = builder.removeDuplicates;
+        this.simplifyTolerance = builder.simplifyTolerance;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Number of decimal places ordinates are rounded to, or -1 for the shortest representation that
+     * reads back to the same double.
+     */
+    public int getDecimalPlaces() {
+        return decimalPlaces;
+    }
+
+    /**
+     * Whether the optional spaces after commas and before opening brackets are left out.
+     */
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * Whether trailing zeros of rounded ordinates (and a then trailing decimal point) are left out.
+     */
+    public boolean isTrimTrailingZeros() {
+        return trimTrailingZeros;
+    }
+
+    /**
+     * Whether consecutive vertices of linestrings and rings that are written the same are left out.
+     */
+    public boolean isRemoveDuplicates() {
+        return removeDuplicates;
+    }
+
+    /**
+     * Douglas-Peucker tolerance linestrings and rings are simplified with, in coordinate units, or 0 if
+     * they are not.
+     */
+    public double getSimplifyTolerance() {
+        return simplifyTolerance;
+    }
+
+    /**
+     * Whether the writer drops any vertices.
+     */
+    public boolean simplifies() {
+        return removeDuplicates || simplifyTolerance > 0;
+    }
+
+    public static final class Builder {
+
+        private int decimalPlaces = -1;
+        private boolean compact;
+        private boolean trimTrailingZeros;
+        private boolean removeDuplicates;
+        private double simplifyTolerance;
+
+        private Builder() {
+        }
+
+        /**
+         * Rounds ordinates half away from zero to the given number of decimal places (0 to 17).
+         */
+        public Builder decimalPlaces(int decimalPlaces) {
+            if (decimalPlaces < 0 || decimalPlaces > DoubleFormatter.MAX_DECIMAL_PLACES) {
+                throw new IllegalArgumentException("Decimal places must be between 0 and " + DoubleFormatter.MAX_DECIMAL_PLACES);
+            }
+            this.decimalPlaces = decimalPlaces;
+            return this;
+        }
+
+        /**
+         * Writes ordinates in the shortest form that reads back to the same double (the default).
+         */
+        public Builder fullPrecision() {
+            this.decimalPlaces = -1;
+            return this;
+        }
+
+        public Builder compact(boolean compact) {
+            this.compact = compact;
+            return this;
+        }
+
+        public Builder trimTrailingZeros(boolean trimTrailingZeros) {
+            this.trimTrailingZeros = trimTrailingZeros;
+            return this;
+        }
+
+        /**
+         * Leaves out consecutive vertices equal to the previous one after rounding to the configured
+         * decimal places, keeping the end points.
+         */
+        public Builder removeDuplicates(boolean removeDuplicates) {
+            this.removeDuplicates = removeDuplicates;
+            return this;
+        }
+
+        /**
+         * Leaves out vertices within the tolerance of the line through the kept ones (Douglas-Peucker), 0
+         * to write all. Rings keep at least 4 vertices and their closing one.
+         */
+        public Builder simplifyTolerance(double tolerance) {
+            if (!(tolerance >= 0) || Double.isInfinite(tolerance)) {
+                throw new IllegalArgumentException("Tolerance must be a finite non-negative number: " + tolerance);
+            }
+            this.simplifyTolerance = tolerance;
+            return this;
+        }
+
+        public WKTWriterConfig build() {
+            return new WKTWriterConfig(this);
+        }
+    }
+}